@@ -0,0 +1,226 @@
+package bmir.radx.metadata.evaluator.codegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.lang.model.SourceVersion;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/***
+ * Generates typed records for the elements and fields of a CEDAR template, with a binder from the instance artifact.
+ * Every element becomes a record whose components are its fields and child elements, in template order.
+ * Fields are bound to FieldValue(value, id, label), multi-instance fields and elements to lists.
+ * The root record carries the template id, so instances of other template versions can be told apart.
+ * Attribute-value and static fields are not generated.
+ *
+ * It runs in the generate-sources phase as a single source file, before the project itself is compiled:
+ * java TemplateRecordGenerator.java <template.json> <output directory> <package> <root record name>
+ */
+public class TemplateRecordGenerator {
+  private static final String ELEMENT_TYPE = "https://schema.metadatacenter.org/core/TemplateElement";
+  private static final String FIELD_TYPE = "https://schema.metadatacenter.org/core/TemplateField";
+  private static final String ATTRIBUTE_VALUE = "attribute-value";
+
+  private final String packageName;
+  private final Path packageDirectory;
+  private final Set<String> recordNames = new HashSet<>();
+
+  private TemplateRecordGenerator(Path outputDirectory, String packageName) {
+    this.packageName = packageName;
+    this.packageDirectory = outputDirectory.resolve(packageName.replace('.', '/'));
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 4) {
+      throw new IllegalArgumentException("Usage: TemplateRecordGenerator <template.json> <output directory> <package> <root record name>");
+    }
+    var template = new ObjectMapper().readTree(Path.of(args[0]).toFile());
+    var generator = new TemplateRecordGenerator(Path.of(args[1]), args[2]);
+    Files.createDirectories(generator.packageDirectory);
+    generator.writeFieldValue();
+    generator.writeRecord(args[3], template, Path.of(args[0]).getFileName().toString(), template.path("@id").asText(null));
+  }
+
+  /***
+   * @param templateId the template id declared on the root record, null for element records
+   */
+  private String writeRecord(String requestedName, JsonNode schema, String source, String templateId) throws IOException {
+    var recordName = reserveName(requestedName);
+    var properties = schema.path("properties");
+    List<String> components = new ArrayList<>();
+    List<String> bindings = new ArrayList<>();
+    Set<String> componentNames = new HashSet<>();
+
+    for (var key : schema.path("_ui").path("order")) {
+      var childName = key.asText();
+      var property = properties.path(childName);
+      boolean multiple = "array".equals(property.path("type").asText());
+      var child = multiple ? property.path("items") : property;
+      var type = child.path("@type").asText();
+
+      String componentType;
+      String binding;
+      if (ELEMENT_TYPE.equals(type)) {
+        var childRecord = writeRecord(toTypeName(childName), child, source + " > " + childName, null);
+        componentType = multiple ? "List<" + childRecord + ">" : childRecord;
+        binding = multiple
+            ? "FieldValue.elements(artifact, " + quote(childName) + ", " + childRecord + "::bind)"
+            : "FieldValue.element(artifact, " + quote(childName) + ", " + childRecord + "::bind)";
+      } else if (FIELD_TYPE.equals(type) && !ATTRIBUTE_VALUE.equals(child.path("_ui").path("inputType").asText())) {
+        componentType = multiple ? "List<FieldValue>" : "FieldValue";
+        binding = multiple
+            ? "FieldValue.fields(artifact, " + quote(childName) + ")"
+            : "FieldValue.field(artifact, " + quote(childName) + ")";
+      } else {
+        continue;
+      }
+
+      var componentName = toComponentName(childName);
+      while (!componentNames.add(componentName)) {
+        componentName = componentName + "_";
+      }
+      components.add("    " + componentType + " " + componentName);
+      bindings.add("        " + binding);
+    }
+
+    var code = new StringBuilder()
+        .append("package ").append(packageName).append(";\n\n")
+        .append("import org.metadatacenter.artifacts.model.core.ParentInstanceArtifact;\n\n")
+        .append("import java.util.List;\n\n")
+        .append("/***\n * Generated from ").append(source).append(", do not edit.\n */\n")
+        .append("public record ").append(recordName).append("(\n")
+        .append(String.join(",\n", components)).append(") {\n");
+    if (templateId != null) {
+      code.append("  public static final String TEMPLATE_ID = ").append(quote(templateId)).append(";\n");
+    }
+    code.append("\n")
+        .append("  /***\n   * A missing artifact is bound to empty values\n   */\n")
+        .append("  public static ").append(recordName).append(" bind(ParentInstanceArtifact artifact) {\n")
+        .append("    return new ").append(recordName).append("(\n")
+        .append(String.join(",\n", bindings)).append(");\n")
+        .append("  }\n")
+        .append("}\n");
+    Files.writeString(packageDirectory.resolve(recordName + ".java"), code);
+    return recordName;
+  }
+
+  private void writeFieldValue() throws IOException {
+    var code = """
+        package %s;
+
+        import org.metadatacenter.artifacts.model.core.FieldInstanceArtifact;
+        import org.metadatacenter.artifacts.model.core.ParentInstanceArtifact;
+
+        import java.net.URI;
+        import java.util.ArrayList;
+        import java.util.Collections;
+        import java.util.List;
+        import java.util.Optional;
+        import java.util.function.Function;
+
+        /***
+         * The value of a template field instance, any part is null when absent. Generated, do not edit.
+         */
+        public record FieldValue(String value, String id, String label) {
+          public static final FieldValue EMPTY = new FieldValue(null, null, null);
+
+          public static FieldValue bind(FieldInstanceArtifact field) {
+            if (field == null) {
+              return EMPTY;
+            }
+            return new FieldValue(field.jsonLdValue().orElse(null),
+                field.jsonLdId().map(URI::toString).orElse(null),
+                field.label().orElse(null));
+          }
+
+          static FieldValue field(ParentInstanceArtifact artifact, String name) {
+            return artifact == null ? EMPTY : bind(artifact.singleInstanceFieldInstances().get(name));
+          }
+
+          static List<FieldValue> fields(ParentInstanceArtifact artifact, String name) {
+            return artifact == null ? List.of() : bindList(artifact.multiInstanceFieldInstances().get(name), FieldValue::bind);
+          }
+
+          static <T> T element(ParentInstanceArtifact artifact, String name, Function<ParentInstanceArtifact, T> binder) {
+            return binder.apply(artifact == null ? null : artifact.singleInstanceElementInstances().get(name));
+          }
+
+          static <T> List<T> elements(ParentInstanceArtifact artifact, String name, Function<ParentInstanceArtifact, T> binder) {
+            return artifact == null ? List.of() : bindList(artifact.multiInstanceElementInstances().get(name), binder);
+          }
+
+          private static <A, T> List<T> bindList(List<? extends A> artifacts, Function<A, T> binder) {
+            if (artifacts == null) {
+              return List.of();
+            }
+            List<T> values = new ArrayList<>(artifacts.size());
+            for (var artifact : artifacts) {
+              values.add(binder.apply(artifact));
+            }
+            return Collections.unmodifiableList(values);
+          }
+
+          public Optional<String> jsonLdValue() {
+            return Optional.ofNullable(value);
+          }
+
+          public Optional<String> jsonLdLabel() {
+            return Optional.ofNullable(label);
+          }
+        }
+        """.formatted(packageName);
+    Files.writeString(packageDirectory.resolve("FieldValue.java"), code);
+  }
+
+  private String reserveName(String name) {
+    var recordName = name;
+    for (int i = 2; !recordNames.add(recordName) || recordName.equals("FieldValue"); i++) {
+      recordName = name + i;
+    }
+    return recordName;
+  }
+
+  private static String toTypeName(String title) {
+    var name = new StringBuilder();
+    for (var word : title.split("[^A-Za-z0-9]+")) {
+      if (!word.isEmpty()) {
+        name.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+      }
+    }
+    if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+      name.insert(0, "Element");
+    }
+    return name.toString();
+  }
+
+  /***
+   * The first word is lower-cased as a whole, so "SHA256 digest" becomes sha256Digest
+   */
+  private static String toComponentName(String title) {
+    var name = new StringBuilder();
+    for (var word : title.split("[^A-Za-z0-9]+")) {
+      if (word.isEmpty()) {
+        continue;
+      }
+      if (name.isEmpty()) {
+        name.append(word.toLowerCase());
+      } else {
+        name.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+      }
+    }
+    if (name.isEmpty() || !Character.isJavaIdentifierStart(name.charAt(0))) {
+      name.insert(0, "field");
+    }
+    return SourceVersion.isKeyword(name.toString()) ? name + "_" : name.toString();
+  }
+
+  private static String quote(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+}
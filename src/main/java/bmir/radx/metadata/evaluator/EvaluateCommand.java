@@ -32,13 +32,13 @@ public class EvaluateCommand implements Callable<Integer> {
   @Option(names = "--o", description = "Path to an output file where the evaluation report will be written.", required = true)
   private Path out;
 
-  @Option(names = "--d", description = "Path to the data file metadata folder.")
+  @Option(names = "--d", description = "Path to the data file metadata folder, a .zip or .tar.gz archive of it, or a .ndjson file with one instance per line.")
   private Path datafile;
 
   @Option(names = "--v", description = "Path to the variable metadata spreadsheet.")
   private Path variable;
 
-  @Option(names = "--s", description = "Path to the study metadata spreadsheet.")
+  @Option(names = "--s", description = "Path to the study metadata spreadsheet, or a CSV or TSV export of it.")
   private Path study;
 
   @Option(names = "--e", description = "Path to the study explorer results csv.")
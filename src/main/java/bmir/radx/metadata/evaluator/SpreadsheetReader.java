@@ -1,16 +1,12 @@
 package bmir.radx.metadata.evaluator;
 
-import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
 import bmir.radx.metadata.evaluator.util.StudyHeaderConverter;
-import bmir.radx.metadata.evaluator.variable.AllVariablesRow;
 import bmir.radx.metadata.evaluator.variable.GlobalCodeBookRow;
-import bmir.radx.metadata.evaluator.variable.VariableMetadataRow;
 import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.*;
-import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -25,20 +21,6 @@ public class SpreadsheetReader {
   @Value("${radx.study.code.list.file.name}")
   private String radxCodeListFileName;
 
-  public List<VariableMetadataRow> readVariablesMetadata(Path filePath) throws IOException {
-    try (var fileInputStream = new FileInputStream(filePath.toFile());
-         var workbook = WorkbookFactory.create(fileInputStream)) {
-      var sheet = workbook.getSheetAt(0);
-      Map<SpreadsheetHeaders, Integer> headerMap = getVariableHeaderMap(sheet.getRow(0));
-
-      return StreamSupport.stream(sheet.spliterator(), false)
-          .skip(1) // Skip header row
-          .filter(row -> !isRowEmpty(row, headerMap))
-          .map(row -> mapRowToVariableMetadata(row, headerMap))
-          .collect(Collectors.toList());
-    }
-  }
-
   public List<GlobalCodeBookRow> readGlobalCodeBook(InputStream inputStream) throws IOException{
     try (Workbook workbook = WorkbookFactory.create(inputStream)) {
       Sheet sheet = workbook.getSheetAt(0);
@@ -52,74 +34,21 @@ public class SpreadsheetReader {
     }
   }
 
-  public List<AllVariablesRow> readAllVariables(Path filePath) throws IOException {
-    try (var fileInputStream = new FileInputStream(filePath.toFile());
-         var workbook = WorkbookFactory.create(fileInputStream)) {
-      var sheet = workbook.getSheetAt(1);
-      Map<SpreadsheetHeaders, Integer> headerMap = getVariableHeaderMap(sheet.getRow(0));
-
-      return StreamSupport.stream(sheet.spliterator(), false)
-          .skip(1) // Skip header row
-          .filter(row -> !isRowEmpty(row, headerMap))
-          .map(row -> mapRowToAllVariables(row, headerMap))
-          .collect(Collectors.toList());
-    }
-  }
-
-  public List<StudyMetadataRow> readStudyMetadata(Path filePath) throws IOException {
-    try (var fileInputStream = new FileInputStream(filePath.toFile());
-         var workbook = WorkbookFactory.create(fileInputStream)) {
-      var sheet = workbook.getSheetAt(0);
-      Map<StudyTemplateFields, Integer> headerMap = getStudyHeaderMap(sheet.getRow(0));
-
-      return StreamSupport.stream(sheet.spliterator(), false)
-          .skip(1) // Skip header row
-          .filter(row -> !isRowEmpty(row, headerMap))
-          .map(row -> mapRowToStudiesMetadata(row, headerMap))
-          .collect(Collectors.toList());
-    }
-  }
-
   /***
-   * This method return the mappings of study PHS to StudyMetadataRow instance
+   * This method read RADx bundles spreadsheet and return data file name to study phs mappings
    */
-  public Map<String, StudyMetadataRow> getStudyMetadataMapping(Path filePath){
-    try (var fileInputStream = new FileInputStream(filePath.toFile());
-         var workbook = WorkbookFactory.create(fileInputStream)) {
-      var sheet = workbook.getSheetAt(0);
-      Map<StudyTemplateFields, Integer> headerMap = getStudyHeaderMap(sheet.getRow(0));
-
-      // Find the column index for "STUDY PHS"
-      int studyPhsColumnIndex = headerMap.getOrDefault(StudyTemplateFields.STUDY_PHS, -1);
-      if (studyPhsColumnIndex == -1) {
-        throw new IllegalArgumentException("STUDY PHS column is missing in the sheet.");
-      }
-
-      return StreamSupport.stream(sheet.spliterator(), false)
-          .skip(1)
-          .filter(row -> !isRowEmpty(row, headerMap))
-          .collect(Collectors.toMap(
-              row -> getCellValueAsString(row.getCell(studyPhsColumnIndex)), // Key: STUDY PHS value
-              row -> mapRowToStudiesMetadata(row, headerMap),               // Value: Mapped StudyMetadataRow
-              (existing, replacement) -> {
-                // Print an error message for duplicates
-                System.err.println("Duplicate STUDY PHS key found at row " + replacement.rowNumber());
-                return existing;
-              }
-          ));
+  public Map<String, String> getDataFile2StudyMapping(){
+    try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(radxBundlesFileName)) {
+      return readDataFile2StudyMapping(inputStream);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  /***
-   * This method read RADx bundles spreadsheet and return data file name to study phs mappings
-   */
-  public Map<String, String> getDataFile2StudyMapping(){
+  public Map<String, String> readDataFile2StudyMapping(InputStream inputStream) throws IOException {
     Map<String, String> resultMap = new HashMap<>();
 
-    try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(radxBundlesFileName);
-         Workbook workbook = WorkbookFactory.create(inputStream)) {
+    try (Workbook workbook = WorkbookFactory.create(inputStream)) {
 
       Sheet sheet = workbook.getSheetAt(0);
 
@@ -143,44 +72,69 @@ public class SpreadsheetReader {
           resultMap.put(origMetaValue, phsValue);
         }
       }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
     }
 
     return resultMap;
   }
 
   public Map<String, Set<String>> readCodeListValues(String sheetName, int column){
-    Map<String, Set<String>> codeListValues = new HashMap<>();
-
     try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(radxCodeListFileName)) {
       assert inputStream != null;
       try (Workbook workbook = WorkbookFactory.create(inputStream)) {
-
         Sheet sheet = workbook.getSheet(sheetName);
         if (sheet == null) {
           throw new IllegalArgumentException("Sheet " + sheetName + " does not exist in the file.");
         }
+        return readCodeListValues(sheet, column);
+      }
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /***
+   * This method read every value column of every sheet of the code list spreadsheet,
+   * and return the code list values keyed by sheet name and column index.
+   * Columns are taken up to the last cell of the widest row, so value columns without a header are indexed too.
+   */
+  public Map<String, Map<Integer, Map<String, Set<String>>>> readAllCodeListValues(InputStream inputStream) throws IOException {
+    Map<String, Map<Integer, Map<String, Set<String>>>> allCodeListValues = new LinkedHashMap<>();
 
+    try (Workbook workbook = WorkbookFactory.create(inputStream)) {
+      for (Sheet sheet : workbook) {
+        int lastColumn = 0;
         for (Row row : sheet) {
-          if (row.getRowNum() == 0) continue;
+          lastColumn = Math.max(lastColumn, row.getLastCellNum());
+        }
+        Map<Integer, Map<String, Set<String>>> sheetValues = new LinkedHashMap<>();
+        for (int column = 1; column < lastColumn; column++) {
+          sheetValues.put(column, readCodeListValues(sheet, column));
+        }
+        allCodeListValues.put(sheet.getSheetName(), sheetValues);
+      }
+    }
 
-          Cell keyCell = row.getCell(0);
-          Cell valueCell = row.getCell(column); // Column B
+    return allCodeListValues;
+  }
 
-          if (keyCell == null || valueCell == null) continue;
+  private Map<String, Set<String>> readCodeListValues(Sheet sheet, int column){
+    Map<String, Set<String>> codeListValues = new HashMap<>();
 
-          String key = getCellValueAsString(keyCell);
-          var fieldName = StudyHeaderConverter.convertCodeListHeaderToField(key);
-          String value = getCellValueAsString(valueCell);
+    for (Row row : sheet) {
+      if (row.getRowNum() == 0) continue;
 
-          if (key != null && value != null) {
-            codeListValues.computeIfAbsent(fieldName, k -> new HashSet<>()).add(value.trim());
-          }
-        }
+      Cell keyCell = row.getCell(0);
+      Cell valueCell = row.getCell(column); // Column B
+
+      if (keyCell == null || valueCell == null) continue;
+
+      String key = getCellValueAsString(keyCell);
+      var fieldName = StudyHeaderConverter.convertCodeListHeaderToField(key);
+      String value = getCellValueAsString(valueCell);
+
+      if (key != null && value != null) {
+        codeListValues.computeIfAbsent(fieldName, k -> new HashSet<>()).add(value.trim());
       }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
     }
 
     return codeListValues;
@@ -198,55 +152,6 @@ public class SpreadsheetReader {
     return headerMap;
   }
 
-  private Map<StudyTemplateFields, Integer> getStudyHeaderMap(Row headerRow) {
-    Map<StudyTemplateFields, Integer> headerMap = new EnumMap<>(StudyTemplateFields.class);
-    for (Cell cell : headerRow) {
-      String headerName = cell.getStringCellValue();
-      if(!headerName.isEmpty()){
-        var field = StudyTemplateFields.fromHeaderName(headerName);
-        headerMap.put(field, cell.getColumnIndex());
-      }
-    }
-    return headerMap;
-  }
-
-
-  private VariableMetadataRow mapRowToVariableMetadata(Row row, Map<SpreadsheetHeaders, Integer> headerMap) {
-    int rowNumber = row.getRowNum() + 1;
-    String dataVariable = getCellValueAsString(row.getCell(headerMap.get(DATA_VARIABLE)));
-    boolean isTier1CDE = Boolean.parseBoolean(getCellValueAsString(row.getCell(headerMap.get(IS_TIER_1_CDE))));
-    int fileCount = (int)Double.parseDouble(getCellValueAsString(row.getCell(headerMap.get(FILE_COUNT))));
-    int studyCount = (int)Double.parseDouble(getCellValueAsString(row.getCell(headerMap.get(STUDY_COUNT))));
-    List<String> dbGaPIDs = Arrays.stream(getCellValueAsString(row.getCell(headerMap.get(DB_GAP_IDS))).split(","))
-        .map(String::trim)
-        .collect(Collectors.toList());
-    List<String> filesPerStudy = Arrays.stream(getCellValueAsString(row.getCell(headerMap.get(FILES_PER_STUDY))).split(";"))
-        .map(String::trim)
-        .collect(Collectors.toList());
-    List<String> radxProgram = Arrays.stream(getCellValueAsString(row.getCell(headerMap.get(RADX_PROGRAM))).split(","))
-        .map(String::trim)
-        .collect(Collectors.toList());
-    String label = getCellValueAsString(row.getCell(headerMap.get(LABEL)));
-    String concept = getCellValueAsString(row.getCell(headerMap.get(CONCEPT)));
-    String responses = getCellValueAsString(row.getCell(headerMap.get(RESPONSES)));
-    String radxGlobalPrompt = getCellValueAsString(row.getCell(headerMap.get(RADX_GLOBAL_PROMPT)));
-
-    return new VariableMetadataRow(
-        rowNumber,
-        dataVariable,
-        isTier1CDE,
-        fileCount,
-        studyCount,
-        dbGaPIDs,
-        filesPerStudy,
-        radxProgram,
-        label,
-        concept,
-        responses,
-        radxGlobalPrompt
-    );
-  }
-
   private GlobalCodeBookRow mapRowToGlobalCodeBook(Row row, Map<SpreadsheetHeaders, Integer> headerMap) {
     int rowNumber = getRowNumber(row);
     String concept = getCellValueAsString(row.getCell(headerMap.get(CONCEPT)));
@@ -263,70 +168,6 @@ public class SpreadsheetReader {
     );
   }
 
-  private AllVariablesRow mapRowToAllVariables(Row row, Map<SpreadsheetHeaders, Integer> headerMap) {
-    String radxProgram = getCellValueAsString(row.getCell(headerMap.get(RADX_PROGRAM)));
-    String studyName = getCellValueAsString(row.getCell(headerMap.get(STUDY_NAME)));
-    String phsId = getCellValueAsString(row.getCell(headerMap.get(DB_GAP_ID)));
-    String fileName = getCellValueAsString(row.getCell(headerMap.get(FILE_NAME)));
-    List<String> variables = Arrays.stream(getCellValueAsString(row.getCell(headerMap.get(VARIABLES))).split(","))
-        .map(String::trim)
-        .toList();
-
-    return new AllVariablesRow(
-        radxProgram,
-        studyName,
-        phsId,
-        fileName,
-        variables
-    );
-  }
-
-  private StudyMetadataRow mapRowToStudiesMetadata(Row row, Map<StudyTemplateFields, Integer> headerMap){
-    return new StudyMetadataRow(
-        getRowNumber(row),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_PROGRAM),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_PHS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_TITLE),
-        getStringCellValue(row, headerMap, StudyTemplateFields.DESCRIPTION),
-        getStringCellValue(row, headerMap, StudyTemplateFields.RADX_ACKNOWLEDGEMENTS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.NIH_GRANT_NUMBERS),
-//        getStringCellValue(row, headerMap, RAPIDS_LINK),
-        getDateCellValue(row, headerMap, StudyTemplateFields.STUDY_START_DATE),
-        getDateCellValue(row, headerMap, StudyTemplateFields.STUDY_END_DATE),
-        getDateCellValue(row, headerMap, StudyTemplateFields.STUDY_RELEASE_DATE),
-        getDateCellValue(row, headerMap, StudyTemplateFields.UPDATED_DATE),
-        getStringCellValue(row, headerMap, StudyTemplateFields.FOA_NUMBERS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.FOA_URLS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.PRINCIPAL_INVESTIGATOR),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_DOI),
-        getStringCellValue(row, headerMap, StudyTemplateFields.PUBLICATION_URLS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.CLINICALTRIALS_GOV_URLS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_WEBSITE_URLS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_DESIGN),
-        getStringCellValue(row, headerMap, StudyTemplateFields.DATA_TYPES),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_DOMAINS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.NIH_INSTITUTES_OR_CENTERS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.MULTI_CENTER_STUDY),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_SITES),
-        getStringCellValue(row, headerMap, StudyTemplateFields.KEYWORDS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.DATA_COLLECTION_METHODS),
-        getIntegerCellValue(row, headerMap, StudyTemplateFields.ESTIMATED_SAMPLE_SIZE),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_POPULATION_FOCUS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.SPECIES),
-        getStringCellValue(row, headerMap, StudyTemplateFields.CONSENT_OR_DATA_USE_LIMITATIONS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.STUDY_STATUS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.HAS_DATA_FILES),
-        getStringCellValue(row, headerMap, StudyTemplateFields.DISEASE_SPECIFIC_GROUP),
-        getStringCellValue(row, headerMap, StudyTemplateFields.DISEASE_SPECIFIC_RELATED_CONDITIONS),
-        getStringCellValue(row, headerMap, StudyTemplateFields.HEALTH_BIOMED_GROUP),
-        getStringCellValue(row, headerMap, StudyTemplateFields.CITATION),
-        getNumericCellValue(row, headerMap, StudyTemplateFields.STUDY_SIZE),
-        getStringCellValue(row, headerMap, StudyTemplateFields.VERSION_NUMBER),
-        getStringCellValue(row, headerMap, StudyTemplateFields.COHORT_SIZE_RANGE),
-        getDateCellValue(row, headerMap, StudyTemplateFields.CREATION_DATE)
-    );
-  }
-
   private String getCellValueAsString(Cell cell) {
     if (cell == null) {
       return null;
@@ -350,49 +191,4 @@ public class SpreadsheetReader {
         .map(row::getCell)
         .allMatch(cell -> cell == null || cell.getCellType() == CellType.BLANK);
   }
-
-  private String getStringCellValue(Row row, Map<? extends Header, Integer> headerMap, StudyTemplateFields header) {
-    Integer columnIndex = headerMap.get(header);
-    if (columnIndex == null) return null;
-    Cell cell = row.getCell(columnIndex);
-    return cell != null ? cell.getStringCellValue() : null;
-  }
-
-  private Date getDateCellValue(Row row, Map<? extends Header, Integer> headerMap, StudyTemplateFields header) {
-    Integer columnIndex = headerMap.get(header);
-    if (columnIndex == null) return null;
-    Cell cell = row.getCell(columnIndex);
-    return cell != null ? cell.getDateCellValue() : null;
-  }
-
-  private Integer getIntegerCellValue(Row row, Map<? extends Header, Integer> headerMap, StudyTemplateFields header) {
-    Integer columnIndex = headerMap.get(header);
-    if (columnIndex == null) return null;
-    Cell cell = row.getCell(columnIndex);
-    return cell != null ? (int) cell.getNumericCellValue() : null;
-  }
-
-  private Boolean getBooleanCellValue(Row row, Map<? extends Header, Integer> headerMap, StudyTemplateFields header, String trueValue) {
-    Integer columnIndex = headerMap.get(header);
-    if (columnIndex == null) return null;
-    Cell cell = row.getCell(columnIndex);
-    if (cell == null) return null;
-    String value = cell.getStringCellValue();
-    return trueValue.equalsIgnoreCase(value);
-  }
-
-  private Double getNumericCellValue(Row row, Map<? extends Header, Integer> headerMap, StudyTemplateFields header) {
-    Integer columnIndex = headerMap.get(header);
-    if (columnIndex == null) return null;
-    Cell cell = row.getCell(columnIndex);
-    if (cell == null) return null;
-
-    // Check if the cell is numeric
-    if (cell.getCellType() == CellType.NUMERIC) {
-      return cell.getNumericCellValue();
-    } else {
-      System.err.println("Expected numeric value at row " + (row.getRowNum() + 1) + ", column " + columnIndex);
-      return Double.NaN;
-    }
-  }
 }
@@ -0,0 +1,97 @@
+package bmir.radx.metadata.evaluator;
+
+import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
+import bmir.radx.metadata.evaluator.variable.VariableSpreadsheet;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * Parsed study and variable spreadsheets shared by every evaluator of a run. Each spreadsheet is parsed once
+ * and reused until the file is modified, so the study spreadsheet is no longer parsed again by every cross-check.
+ */
+@Component
+public class SpreadsheetSession {
+  private final StreamingSpreadsheetReader spreadsheetReader;
+  private final Map<Path, Entry<List<StudyMetadataRow>>> studyMetadata = new ConcurrentHashMap<>();
+  private final Map<Path, Entry<Map<String, StudyMetadataRow>>> studyMetadataMappings = new ConcurrentHashMap<>();
+  private final Map<Path, Entry<VariableSpreadsheet>> variableSpreadsheets = new ConcurrentHashMap<>();
+
+  public SpreadsheetSession(StreamingSpreadsheetReader spreadsheetReader) {
+    this.spreadsheetReader = spreadsheetReader;
+  }
+
+  public List<StudyMetadataRow> getStudyMetadata(Path filePath) {
+    return get(studyMetadata, filePath, path -> List.copyOf(spreadsheetReader.readStudyMetadata(path)));
+  }
+
+  /***
+   * This method return the mappings of study PHS to StudyMetadataRow instance
+   */
+  public Map<String, StudyMetadataRow> getStudyMetadataMapping(Path filePath) {
+    return get(studyMetadataMappings, filePath,
+        path -> StreamingSpreadsheetReader.toStudyMetadataMapping(getStudyMetadata(path)));
+  }
+
+  public VariableSpreadsheet getVariableSpreadsheet(Path filePath) {
+    return get(variableSpreadsheets, filePath, path -> {
+      var spreadsheet = spreadsheetReader.readVariableSpreadsheet(path);
+      return new VariableSpreadsheet(
+          List.copyOf(spreadsheet.variableMetadataRows()),
+          List.copyOf(spreadsheet.allVariablesRows()));
+    });
+  }
+
+  /***
+   * This method is called after the file was rewritten without touching the sheets that were parsed, e.g. when only
+   * the ".metadata" tab was added, so the parsed sheets are kept for the new modification time
+   */
+  public void keepParsedSheets(Path filePath) {
+    var path = filePath.toAbsolutePath().normalize();
+    var lastModified = getLastModifiedTime(path);
+    restamp(studyMetadata, path, lastModified);
+    restamp(studyMetadataMappings, path, lastModified);
+    restamp(variableSpreadsheets, path, lastModified);
+  }
+
+  private static <T> void restamp(Map<Path, Entry<T>> entries, Path path, FileTime lastModified) {
+    entries.computeIfPresent(path, (key, existing) -> new Entry<>(lastModified, existing.value()));
+  }
+
+  private <T> T get(Map<Path, Entry<T>> entries, Path filePath, Loader<T> loader) {
+    var path = filePath.toAbsolutePath().normalize();
+    var lastModified = getLastModifiedTime(path);
+    var entry = entries.compute(path, (key, existing) -> {
+      if (existing != null && existing.lastModified().equals(lastModified)) {
+        return existing;
+      }
+      try {
+        return new Entry<>(lastModified, loader.load(key));
+      } catch (IOException e) {
+        throw new RuntimeException("Error read spreadsheet " + key + ": " + e.getMessage(), e);
+      }
+    });
+    return entry.value();
+  }
+
+  private static FileTime getLastModifiedTime(Path path) {
+    try {
+      return Files.getLastModifiedTime(path);
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to access file " + path, e);
+    }
+  }
+
+  private interface Loader<T> {
+    T load(Path path) throws IOException;
+  }
+
+  private record Entry<T>(FileTime lastModified, T value) {
+  }
+}
@@ -0,0 +1,673 @@
+package bmir.radx.metadata.evaluator;
+
+import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
+import bmir.radx.metadata.evaluator.variable.AllVariablesRow;
+import bmir.radx.metadata.evaluator.variable.VariableMetadataRow;
+import bmir.radx.metadata.evaluator.variable.VariableSpreadsheet;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static bmir.radx.metadata.evaluator.SpreadsheetHeaders.*;
+
+/***
+ * Reads the study and variable metadata spreadsheets with the XSSF event model. Rows are mapped as the sheet XML
+ * is parsed, so the workbook is never loaded as a DOM. Cell values follow the POI Cell getters: blank cells are empty
+ * text, text fields reject numeric cells, variable fields render numbers with Double.toString, booleans as
+ * TRUE/FALSE and formula cells as their formula, and dates follow the 1900 or 1904 date system of the workbook.
+ * Study metadata can also be read from a CSV or TSV export, which is streamed record by record with commons-csv.
+ */
+@Component
+public class StreamingSpreadsheetReader {
+  private static final int FIRST_SHEET = 0;
+  private static final int SECOND_SHEET = 1;
+  private static final char BYTE_ORDER_MARK = '\uFEFF';
+  private static final List<DateTimeFormatter> TEXT_DATE_FORMATS = List.of(
+      DateTimeFormatter.ISO_LOCAL_DATE,
+      DateTimeFormatter.ofPattern("M/d/yyyy"));
+
+  public List<VariableMetadataRow> readVariablesMetadata(Path filePath) throws IOException {
+    List<VariableMetadataRow> rows = new ArrayList<>();
+    readWorkbook(filePath, workbook -> workbook.forEachRow(FIRST_SHEET, SpreadsheetHeaders.class,
+        SpreadsheetHeaders::fromHeaderName, this::mapRowToVariableMetadata, rows::add));
+    return rows;
+  }
+
+  public List<AllVariablesRow> readAllVariables(Path filePath) throws IOException {
+    List<AllVariablesRow> rows = new ArrayList<>();
+    readWorkbook(filePath, workbook -> workbook.forEachRow(SECOND_SHEET, SpreadsheetHeaders.class,
+        SpreadsheetHeaders::fromHeaderName, this::mapRowToAllVariables, rows::add));
+    return rows;
+  }
+
+  /***
+   * This method reads both sheets of the variable metadata spreadsheet with a single open of the workbook
+   */
+  public VariableSpreadsheet readVariableSpreadsheet(Path filePath) throws IOException {
+    List<VariableMetadataRow> variableMetadataRows = new ArrayList<>();
+    List<AllVariablesRow> allVariablesRows = new ArrayList<>();
+    readWorkbook(filePath, workbook -> {
+      workbook.forEachRow(FIRST_SHEET, SpreadsheetHeaders.class,
+          SpreadsheetHeaders::fromHeaderName, this::mapRowToVariableMetadata, variableMetadataRows::add);
+      workbook.forEachRow(SECOND_SHEET, SpreadsheetHeaders.class,
+          SpreadsheetHeaders::fromHeaderName, this::mapRowToAllVariables, allVariablesRows::add);
+    });
+    return new VariableSpreadsheet(variableMetadataRows, allVariablesRows);
+  }
+
+  public List<StudyMetadataRow> readStudyMetadata(Path filePath) throws IOException {
+    List<StudyMetadataRow> rows = new ArrayList<>();
+    if (isDelimitedText(filePath)) {
+      forEachDelimitedRow(filePath, StudyTemplateFields.class,
+          StudyTemplateFields::fromHeaderName, this::mapRowToStudiesMetadata, rows::add);
+      return rows;
+    }
+    readWorkbook(filePath, workbook -> workbook.forEachRow(FIRST_SHEET, StudyTemplateFields.class,
+        StudyTemplateFields::fromHeaderName, this::mapRowToStudiesMetadata, rows::add));
+    return rows;
+  }
+
+  /***
+   * This method return the mappings of study PHS to StudyMetadataRow instance
+   */
+  public Map<String, StudyMetadataRow> getStudyMetadataMapping(Path filePath) {
+    try {
+      return toStudyMetadataMapping(readStudyMetadata(filePath));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /***
+   * This method return the mappings of study PHS to StudyMetadataRow instance, keeping the first row of duplicates
+   */
+  public static Map<String, StudyMetadataRow> toStudyMetadataMapping(List<StudyMetadataRow> studyMetadataRows) {
+    Map<String, StudyMetadataRow> studyMetadataMapping = new HashMap<>();
+    for (var studyRow : studyMetadataRows) {
+      var existing = studyMetadataMapping.putIfAbsent(studyRow.studyPHS(), studyRow);
+      if (existing != null) {
+        System.err.println("Duplicate STUDY PHS key found at row " + studyRow.rowNumber());
+      }
+    }
+    return Collections.unmodifiableMap(studyMetadataMapping);
+  }
+
+  /***
+   * This method returns true for CSV and TSV files, which are read without a workbook
+   */
+  public static boolean isDelimitedText(Path filePath) {
+    var fileName = filePath.getFileName().toString().toLowerCase();
+    return fileName.endsWith(".csv") || fileName.endsWith(".tsv");
+  }
+
+  public static CSVFormat getDelimitedFormat(Path filePath) {
+    return filePath.getFileName().toString().toLowerCase().endsWith(".tsv") ? CSVFormat.TDF : CSVFormat.DEFAULT;
+  }
+
+  /***
+   * This method hands every record of a CSV or TSV file to the consumer, numbered like spreadsheet rows,
+   * so the header is row 1. Empty values are left out like blank cells.
+   */
+  public static void forEachDelimitedRecord(Path filePath, Consumer<DelimitedRecord> consumer) throws IOException {
+    try (var reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8);
+         var parser = getDelimitedFormat(filePath).parse(reader)) {
+      for (var record : parser) {
+        Map<Integer, String> cells = new HashMap<>();
+        for (int column = 0; column < record.size(); column++) {
+          var value = record.get(column);
+          if (column == 0 && record.getRecordNumber() == 1 && !value.isEmpty() && value.charAt(0) == BYTE_ORDER_MARK) {
+            value = value.substring(1);
+          }
+          if (!value.isEmpty()) {
+            cells.put(column, value);
+          }
+        }
+        consumer.accept(new DelimitedRecord((int) record.getRecordNumber(), cells));
+      }
+    }
+  }
+
+  private <H extends Enum<H> & Header, R> void forEachDelimitedRow(Path filePath,
+                                                                   Class<H> headerType,
+                                                                   Function<String, H> headerParser,
+                                                                   BiFunction<SheetRow, Map<H, Integer>, R> rowMapper,
+                                                                   Consumer<R> consumer) throws IOException {
+    Map<H, Integer> headerMap = new EnumMap<>(headerType);
+    forEachDelimitedRecord(filePath, row -> {
+      if (row.rowNumber() == 1) {
+        row.cells().forEach((column, headerName) -> headerMap.put(headerParser.apply(headerName.trim()), column));
+      } else if (!isRowEmpty(row, headerMap)) {
+        consumer.accept(rowMapper.apply(row, headerMap));
+      }
+    });
+  }
+
+  private void readWorkbook(Path filePath, WorkbookReader workbookReader) throws IOException {
+    OPCPackage opcPackage = null;
+    try {
+      opcPackage = OPCPackage.open(filePath.toFile(), PackageAccess.READ);
+      var xssfReader = new XSSFReader(opcPackage);
+      var sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+      workbookReader.read(new OpenWorkbook(filePath, xssfReader, sharedStrings, isDate1904(xssfReader)));
+    } catch (OpenXML4JException | SAXException | ParserConfigurationException | XmlException e) {
+      throw new IOException("Error reading spreadsheet " + filePath + ": " + e.getMessage(), e);
+    } finally {
+      // A package opened read-only is discarded with revert(), close() would try to save it
+      if (opcPackage != null) {
+        opcPackage.revert();
+      }
+    }
+  }
+
+  private static boolean isDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException, XmlException {
+    try (var workbookData = xssfReader.getWorkbookData()) {
+      var workbook = WorkbookDocument.Factory.parse(workbookData).getWorkbook();
+      return workbook.isSetWorkbookPr() && workbook.getWorkbookPr().getDate1904();
+    }
+  }
+
+  private interface WorkbookReader {
+    void read(OpenWorkbook workbook) throws IOException, OpenXML4JException, SAXException, ParserConfigurationException;
+  }
+
+  private record OpenWorkbook(Path filePath, XSSFReader xssfReader, ReadOnlySharedStringsTable sharedStrings,
+                              boolean date1904) {
+    /***
+     * This method parses one sheet of the workbook and hands every non-empty row after the header row
+     * to the consumer, mapped with the header columns found in the first row
+     */
+    <H extends Enum<H> & Header, R> void forEachRow(int sheetIndex,
+                                                    Class<H> headerType,
+                                                    Function<String, H> headerParser,
+                                                    BiFunction<SheetRow, Map<H, Integer>, R> rowMapper,
+                                                    Consumer<R> consumer)
+        throws IOException, OpenXML4JException, SAXException, ParserConfigurationException {
+      var sheets = xssfReader.getSheetsData();
+      for (int i = 0; i < sheetIndex && sheets.hasNext(); i++) {
+        sheets.next().close();
+      }
+      if (!sheets.hasNext()) {
+        throw new IllegalArgumentException("Sheet index " + sheetIndex + " does not exist in " + filePath);
+      }
+
+      Map<H, Integer> headerMap = new EnumMap<>(headerType);
+      var rowHandler = new SheetXmlHandler(sharedStrings, date1904, row -> {
+        if (row.rowNumber() == 1) {
+          row.cells().keySet().forEach(column -> {
+            var headerName = row.get(column);
+            if (!headerName.isEmpty()) {
+              headerMap.put(headerParser.apply(headerName), column);
+            }
+          });
+        } else if (!isRowEmpty(row, headerMap)) {
+          consumer.accept(rowMapper.apply(row, headerMap));
+        }
+      });
+
+      try (var sheet = sheets.next()) {
+        var xmlReader = newXmlReader();
+        xmlReader.setContentHandler(rowHandler);
+        xmlReader.parse(new InputSource(sheet));
+      }
+    }
+  }
+
+  private static org.xml.sax.XMLReader newXmlReader() throws ParserConfigurationException, SAXException {
+    var factory = SAXParserFactory.newInstance();
+    factory.setNamespaceAware(true);
+    factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    return factory.newSAXParser().getXMLReader();
+  }
+
+  private static boolean isRowEmpty(SheetRow row, Map<? extends Header, Integer> headerMap) {
+    return row.isEmpty(headerMap.values());
+  }
+
+  private VariableMetadataRow mapRowToVariableMetadata(SheetRow row, Map<SpreadsheetHeaders, Integer> headerMap) {
+    String dataVariable = row.getCellValueAsString(headerMap.get(DATA_VARIABLE));
+    boolean isTier1CDE = Boolean.parseBoolean(row.getCellValueAsString(headerMap.get(IS_TIER_1_CDE)));
+    int fileCount = (int)Double.parseDouble(row.getCellValueAsString(headerMap.get(FILE_COUNT)));
+    int studyCount = (int)Double.parseDouble(row.getCellValueAsString(headerMap.get(STUDY_COUNT)));
+    List<String> dbGaPIDs = splitAndTrim(row.getCellValueAsString(headerMap.get(DB_GAP_IDS)), ",");
+    List<String> filesPerStudy = splitAndTrim(row.getCellValueAsString(headerMap.get(FILES_PER_STUDY)), ";");
+    List<String> radxProgram = splitAndTrim(row.getCellValueAsString(headerMap.get(RADX_PROGRAM)), ",");
+    String label = row.getCellValueAsString(headerMap.get(LABEL));
+    String concept = row.getCellValueAsString(headerMap.get(CONCEPT));
+    String responses = row.getCellValueAsString(headerMap.get(RESPONSES));
+    String radxGlobalPrompt = row.getCellValueAsString(headerMap.get(RADX_GLOBAL_PROMPT));
+
+    return new VariableMetadataRow(
+        row.rowNumber(),
+        dataVariable,
+        isTier1CDE,
+        fileCount,
+        studyCount,
+        dbGaPIDs,
+        filesPerStudy,
+        radxProgram,
+        label,
+        concept,
+        responses,
+        radxGlobalPrompt
+    );
+  }
+
+  private AllVariablesRow mapRowToAllVariables(SheetRow row, Map<SpreadsheetHeaders, Integer> headerMap) {
+    return new AllVariablesRow(
+        row.getCellValueAsString(headerMap.get(RADX_PROGRAM)),
+        row.getCellValueAsString(headerMap.get(STUDY_NAME)),
+        row.getCellValueAsString(headerMap.get(DB_GAP_ID)),
+        row.getCellValueAsString(headerMap.get(FILE_NAME)),
+        splitAndTrim(row.getCellValueAsString(headerMap.get(VARIABLES)), ",")
+    );
+  }
+
+  private StudyMetadataRow mapRowToStudiesMetadata(SheetRow row, Map<StudyTemplateFields, Integer> headerMap){
+    return new StudyMetadataRow(
+        row.rowNumber(),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_PROGRAM)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_PHS)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_TITLE)),
+        row.get(headerMap.get(StudyTemplateFields.DESCRIPTION)),
+        row.get(headerMap.get(StudyTemplateFields.RADX_ACKNOWLEDGEMENTS)),
+        row.get(headerMap.get(StudyTemplateFields.NIH_GRANT_NUMBERS)),
+        row.getDate(headerMap.get(StudyTemplateFields.STUDY_START_DATE)),
+        row.getDate(headerMap.get(StudyTemplateFields.STUDY_END_DATE)),
+        row.getDate(headerMap.get(StudyTemplateFields.STUDY_RELEASE_DATE)),
+        row.getDate(headerMap.get(StudyTemplateFields.UPDATED_DATE)),
+        row.get(headerMap.get(StudyTemplateFields.FOA_NUMBERS)),
+        row.get(headerMap.get(StudyTemplateFields.FOA_URLS)),
+        row.get(headerMap.get(StudyTemplateFields.PRINCIPAL_INVESTIGATOR)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_DOI)),
+        row.get(headerMap.get(StudyTemplateFields.PUBLICATION_URLS)),
+        row.get(headerMap.get(StudyTemplateFields.CLINICALTRIALS_GOV_URLS)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_WEBSITE_URLS)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_DESIGN)),
+        row.get(headerMap.get(StudyTemplateFields.DATA_TYPES)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_DOMAINS)),
+        row.get(headerMap.get(StudyTemplateFields.NIH_INSTITUTES_OR_CENTERS)),
+        row.get(headerMap.get(StudyTemplateFields.MULTI_CENTER_STUDY)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_SITES)),
+        row.get(headerMap.get(StudyTemplateFields.KEYWORDS)),
+        row.get(headerMap.get(StudyTemplateFields.DATA_COLLECTION_METHODS)),
+        row.getInteger(headerMap.get(StudyTemplateFields.ESTIMATED_SAMPLE_SIZE)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_POPULATION_FOCUS)),
+        row.get(headerMap.get(StudyTemplateFields.SPECIES)),
+        row.get(headerMap.get(StudyTemplateFields.CONSENT_OR_DATA_USE_LIMITATIONS)),
+        row.get(headerMap.get(StudyTemplateFields.STUDY_STATUS)),
+        row.get(headerMap.get(StudyTemplateFields.HAS_DATA_FILES)),
+        row.get(headerMap.get(StudyTemplateFields.DISEASE_SPECIFIC_GROUP)),
+        row.get(headerMap.get(StudyTemplateFields.DISEASE_SPECIFIC_RELATED_CONDITIONS)),
+        row.get(headerMap.get(StudyTemplateFields.HEALTH_BIOMED_GROUP)),
+        row.get(headerMap.get(StudyTemplateFields.CITATION)),
+        row.getNumeric(headerMap.get(StudyTemplateFields.STUDY_SIZE)),
+        row.get(headerMap.get(StudyTemplateFields.VERSION_NUMBER)),
+        row.get(headerMap.get(StudyTemplateFields.COHORT_SIZE_RANGE)),
+        row.getDate(headerMap.get(StudyTemplateFields.CREATION_DATE))
+    );
+  }
+
+  /***
+   * This method parses a date written as text in a CSV or TSV file, such as 2021-05-31 or 5/31/2021,
+   * and returns null when the text is not a date
+   */
+  public static Date parseTextDate(String value) {
+    for (var format : TEXT_DATE_FORMATS) {
+      try {
+        var date = LocalDate.parse(value.trim(), format);
+        return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+      } catch (DateTimeParseException e) {
+        // Try the next format
+      }
+    }
+    return null;
+  }
+
+  private static List<String> splitAndTrim(String value, String separator) {
+    if (value == null) {
+      return new ArrayList<>();
+    }
+    return Arrays.stream(value.split(separator))
+        .map(String::trim)
+        .collect(Collectors.toList());
+  }
+
+  /***
+   * The values of one row of a sheet or of a CSV or TSV file, read with the semantics of the POI Cell getters
+   */
+  interface SheetRow {
+    int rowNumber();
+
+    /***
+     * This method returns the value of a text field, like Cell.getStringCellValue
+     */
+    String get(Integer column);
+
+    /***
+     * This method returns the value of a variable field, numbers with Double.toString and formulas as their formula
+     */
+    String getCellValueAsString(Integer column);
+
+    Date getDate(Integer column);
+
+    Integer getInteger(Integer column);
+
+    Double getNumeric(Integer column);
+
+    /***
+     * This method returns true when none of the columns has a value
+     */
+    boolean isEmpty(Collection<Integer> columns);
+  }
+
+  /***
+   * The values of one record of a CSV or TSV file, keyed by column index. Empty values are not present.
+   */
+  public record DelimitedRecord(int rowNumber, Map<Integer, String> cells) implements SheetRow {
+    @Override
+    public String get(Integer column) {
+      return column == null ? null : cells.get(column);
+    }
+
+    @Override
+    public String getCellValueAsString(Integer column) {
+      var value = get(column);
+      return "null".equals(value) ? null : value;
+    }
+
+    /***
+     * Dates are text such as 2021-05-31 or 5/31/2021, or serial numbers when the file was exported without formats
+     */
+    @Override
+    public Date getDate(Integer column) {
+      var value = get(column);
+      if (value == null) return null;
+      try {
+        return DateUtil.getJavaDate(Double.parseDouble(value));
+      } catch (NumberFormatException e) {
+        return parseTextDate(column, value);
+      }
+    }
+
+    @Override
+    public Integer getInteger(Integer column) {
+      var value = get(column);
+      return value == null ? null : (int) parseNumber(column, value);
+    }
+
+    @Override
+    public Double getNumeric(Integer column) {
+      var value = get(column);
+      if (value == null) return null;
+      try {
+        return Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+        System.err.println("Expected numeric value at row " + rowNumber + ", column " + column);
+        return Double.NaN;
+      }
+    }
+
+    @Override
+    public boolean isEmpty(Collection<Integer> columns) {
+      return columns.stream().noneMatch(cells::containsKey);
+    }
+
+    private Date parseTextDate(Integer column, String value) {
+      var date = StreamingSpreadsheetReader.parseTextDate(value);
+      if (date == null) {
+        throw new IllegalStateException("Expected date value at row " + rowNumber + ", column " + column + ": " + value);
+      }
+      return date;
+    }
+
+    private double parseNumber(Integer column, String value) {
+      try {
+        return Double.parseDouble(value);
+      } catch (NumberFormatException e) {
+        throw new IllegalStateException("Expected numeric value at row " + rowNumber + ", column " + column + ": " + value);
+      }
+    }
+  }
+
+  /***
+   * The cells of one row of a sheet, keyed by column index. Cells without a value are present as BLANK cells,
+   * like in a workbook read by the POI user model, and the getters follow the matching Cell getters.
+   */
+  record WorkbookRow(int rowNumber, Map<Integer, WorkbookCell> cells, boolean date1904) implements SheetRow {
+    @Override
+    public String get(Integer column) {
+      var cell = getCell(column);
+      if (cell == null) return null;
+      if (cell.type() == CellType.BLANK) return "";
+      if (cell.resultType() != CellType.STRING) {
+        throw new IllegalStateException("Expected text value at row " + rowNumber + ", column " + column + ": " + cell.value());
+      }
+      return cell.value();
+    }
+
+    @Override
+    public String getCellValueAsString(Integer column) {
+      var cell = getCell(column);
+      if (cell == null) return null;
+      String value = switch (cell.type()) {
+        case STRING -> cell.value();
+        case NUMERIC -> Double.toString(Double.parseDouble(cell.value()));
+        case BOOLEAN -> "1".equals(cell.value()) ? "TRUE" : "FALSE";
+        case FORMULA -> cell.getFormula(rowNumber, column);
+        default -> null;
+      };
+      return "null".equals(value) ? null : value;
+    }
+
+    /***
+     * Dates are serial numbers counted from 1900, or from 1904 when the workbook uses the 1904 date system
+     */
+    @Override
+    public Date getDate(Integer column) {
+      var cell = getCell(column);
+      if (cell == null || cell.type() == CellType.BLANK) return null;
+      return DateUtil.getJavaDate(getNumericResult(cell, column), date1904);
+    }
+
+    /***
+     * A blank cell is 0, like Cell.getNumericCellValue
+     */
+    @Override
+    public Integer getInteger(Integer column) {
+      var cell = getCell(column);
+      if (cell == null) return null;
+      return cell.type() == CellType.BLANK ? 0 : (int) getNumericResult(cell, column);
+    }
+
+    @Override
+    public Double getNumeric(Integer column) {
+      var cell = getCell(column);
+      if (cell == null) return null;
+      if (cell.type() == CellType.NUMERIC) {
+        return Double.parseDouble(cell.value());
+      }
+      System.err.println("Expected numeric value at row " + rowNumber + ", column " + column);
+      return Double.NaN;
+    }
+
+    @Override
+    public boolean isEmpty(Collection<Integer> columns) {
+      return columns.stream()
+          .map(this::getCell)
+          .allMatch(cell -> cell == null || cell.type() == CellType.BLANK);
+    }
+
+    private WorkbookCell getCell(Integer column) {
+      return column == null ? null : cells.get(column);
+    }
+
+    private double getNumericResult(WorkbookCell cell, Integer column) {
+      if (cell.resultType() != CellType.NUMERIC) {
+        throw new IllegalStateException("Expected numeric value at row " + rowNumber + ", column " + column + ": " + cell.value());
+      }
+      return Double.parseDouble(cell.value());
+    }
+  }
+
+  /***
+   * A cell as stored in the sheet XML. Formula cells have the FORMULA type and the type of their cached result,
+   * other cells have the same type twice. Numbers are kept as their stored text and booleans as 1 or 0.
+   * The formula is null for the cells sharing the formula of another cell, whose text is only stored once.
+   */
+  record WorkbookCell(CellType type, CellType resultType, String value, String formula) {
+    String getFormula(int rowNumber, Integer column) {
+      if (formula == null) {
+        throw new IllegalStateException("Shared formula at row " + rowNumber + ", column " + column + " is not supported");
+      }
+      return formula;
+    }
+  }
+
+  /***
+   * Collects the cells of every row of a sheet from the sheet XML and hands each row to the consumer
+   */
+  private static class SheetXmlHandler extends DefaultHandler {
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final boolean date1904;
+    private final Consumer<WorkbookRow> rowConsumer;
+    private final StringBuilder text = new StringBuilder();
+    private Map<Integer, WorkbookCell> cells;
+    private int rowNumber;
+    private int column;
+    private String cellType;
+    private String value;
+    private String inlineString;
+    private String formula;
+    private boolean hasFormula;
+    private boolean inValue;
+    private boolean inFormula;
+    private boolean inInlineString;
+
+    private SheetXmlHandler(ReadOnlySharedStringsTable sharedStrings, boolean date1904, Consumer<WorkbookRow> rowConsumer) {
+      this.sharedStrings = sharedStrings;
+      this.date1904 = date1904;
+      this.rowConsumer = rowConsumer;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      switch (localName) {
+        case "row" -> {
+          var reference = attributes.getValue("r");
+          rowNumber = reference == null ? rowNumber + 1 : Integer.parseInt(reference);
+          cells = new HashMap<>();
+          column = -1;
+        }
+        case "c" -> {
+          var reference = attributes.getValue("r");
+          column = reference == null ? column + 1 : new CellReference(reference).getCol();
+          cellType = attributes.getValue("t");
+          value = null;
+          inlineString = null;
+          formula = null;
+          hasFormula = false;
+        }
+        case "v" -> startText(() -> inValue = true);
+        case "f" -> {
+          hasFormula = true;
+          startText(() -> inFormula = true);
+        }
+        case "is" -> startText(() -> inInlineString = true);
+        default -> { }
+      }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      switch (localName) {
+        case "v" -> {
+          value = text.toString();
+          inValue = false;
+        }
+        case "f" -> {
+          // Cells sharing the formula of another cell have an empty formula element
+          formula = text.isEmpty() ? null : text.toString();
+          inFormula = false;
+        }
+        case "is" -> {
+          inlineString = text.toString();
+          inInlineString = false;
+        }
+        case "c" -> cells.put(column, createCell());
+        case "row" -> rowConsumer.accept(new WorkbookRow(rowNumber, cells, date1904));
+        default -> { }
+      }
+    }
+
+    @Override
+    public void characters(char[] characters, int start, int length) {
+      if (inValue || inFormula || inInlineString) {
+        text.append(characters, start, length);
+      }
+    }
+
+    private void startText(Runnable start) {
+      text.setLength(0);
+      start.run();
+    }
+
+    private WorkbookCell createCell() {
+      CellType resultType;
+      String result;
+      if ("inlineStr".equals(cellType)) {
+        resultType = CellType.STRING;
+        result = inlineString == null ? "" : inlineString;
+      } else if (value == null && !hasFormula) {
+        return new WorkbookCell(CellType.BLANK, CellType.BLANK, "", null);
+      } else if ("s".equals(cellType)) {
+        resultType = CellType.STRING;
+        result = sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+      } else if ("str".equals(cellType) || "d".equals(cellType)) {
+        resultType = CellType.STRING;
+        result = value == null ? "" : value;
+      } else if ("b".equals(cellType)) {
+        resultType = CellType.BOOLEAN;
+        result = value == null ? "0" : value;
+      } else if ("e".equals(cellType)) {
+        resultType = CellType.ERROR;
+        result = value;
+      } else {
+        resultType = CellType.NUMERIC;
+        result = value == null ? "0" : value;
+      }
+      return hasFormula
+          ? new WorkbookCell(CellType.FORMULA, resultType, result, formula)
+          : new WorkbookCell(resultType, resultType, result, null);
+    }
+  }
+}
@@ -4,8 +4,11 @@ import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.sharedComponents.LinkChecker;
-import bmir.radx.metadata.evaluator.util.ReporterGetter;
+import bmir.radx.metadata.evaluator.sharedComponents.LinkChecker.JsonLink;
 import bmir.radx.metadata.evaluator.util.StudyPhsGetter;
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
+import edu.stanford.bmir.radx.metadata.validator.lib.AttributeValueFieldValues;
+import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.springframework.stereotype.Component;
 
@@ -19,27 +22,104 @@ import static bmir.radx.metadata.evaluator.sharedComponents.EvaluationReportUpda
 @Component
 public class DataFileAccessibilityEvaluator {
   private final LinkChecker linkChecker;
-  private final ReporterGetter reporterGetter;
   private final StudyPhsGetter studyPhsGetter;
+  private final InstanceFieldWalker instanceFieldWalker;
 
-  public DataFileAccessibilityEvaluator(LinkChecker linkChecker, ReporterGetter reporterGetter, StudyPhsGetter studyPhsGetter) {
+  public DataFileAccessibilityEvaluator(LinkChecker linkChecker, StudyPhsGetter studyPhsGetter, InstanceFieldWalker instanceFieldWalker) {
     this.linkChecker = linkChecker;
-    this.reporterGetter = reporterGetter;
     this.studyPhsGetter = studyPhsGetter;
+    this.instanceFieldWalker = instanceFieldWalker;
   }
 
   public void evaluate(Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts, Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
-    var totalUrlDistribution = new HashMap<Integer, Integer>();
-    var totalUrl = 0;
-    var resolvableURL = 0;
-    var templateReporter = reporterGetter.getTemplateReporter();
-    var inaccessibleRecords = new HashSet<String>();
-    for(var instance : templateInstanceArtifacts.entrySet()){
-      var fileName = instance.getKey().getFileName().toString();
-      var instanceArtifact = instance.getValue();
-      var studyPHS = studyPhsGetter.getCleanStudyPhs(instanceArtifact);
-      var instanceReporter = reporterGetter.getTemplateInstanceValuesReporter(instanceArtifact);
-      var urlCount = linkChecker.checkJson(studyPHS, fileName, templateReporter, instanceReporter, validationSummary.getValidationResults());
+    DataFileStage.run(start(consumer, validationSummary), templateInstanceArtifacts);
+  }
+
+  public FieldProjection getFieldProjection(){
+    // Every link field is resolved
+    return FieldProjection.all();
+  }
+
+  public DataFileStage start(Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
+    return instanceFieldWalker.walk(List.of(visitor(consumer, validationSummary)));
+  }
+
+  /***
+   * This method returns a visitor that resolves the links of each instance as soon as they are extracted
+   */
+  public InstanceFieldVisitor visitor(Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
+    var resolver = new LinkResolver(consumer, validationSummary);
+    return extractLinks(resolver::resolve, resolver::complete);
+  }
+
+  /***
+   * This method returns a visitor that only extracts the links of each instance, so they can be resolved later
+   * on a thread that may wait for the remote services
+   */
+  public InstanceFieldVisitor extractLinks(Consumer<InstanceLinks> linksConsumer, Runnable onComplete){
+    return new InstanceFieldVisitor() {
+      private TemplateFieldIndex templateFields;
+      private String fileName;
+      private String studyPHS;
+      private List<JsonLink> links;
+
+      @Override
+      public void startInstance(Path path, TemplateInstanceArtifact instance, TemplateFieldIndex fields) {
+        templateFields = fields;
+        fileName = path.getFileName().toString();
+        studyPHS = studyPhsGetter.getCleanStudyPhs(instance);
+        links = new ArrayList<>();
+      }
+
+      @Override
+      public void visitField(String path, int id, FieldValues fieldValues, boolean empty) {
+        linkChecker.getJsonLink(templateFields, path, id, fieldValues, empty).ifPresent(links::add);
+      }
+
+      @Override
+      public void visitAttributeValueField(AttributeValueFieldValues attributeValueField, boolean empty) {
+        linkChecker.getJsonLink(attributeValueField).ifPresent(links::add);
+      }
+
+      @Override
+      public void endInstance() {
+        linksConsumer.accept(new InstanceLinks(fileName, studyPHS, links));
+      }
+
+      @Override
+      public void complete() {
+        onComplete.run();
+      }
+    };
+  }
+
+  public void resolveLinks(List<InstanceLinks> instanceLinks, Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
+    var resolver = new LinkResolver(consumer, validationSummary);
+    instanceLinks.forEach(resolver::resolve);
+    resolver.complete();
+  }
+
+  public record InstanceLinks(String fileName, String studyPHS, List<JsonLink> links) {
+  }
+
+  private class LinkResolver {
+    private final Consumer<EvaluationResult> consumer;
+    private final ValidationSummary<JsonValidationResult> validationSummary;
+    private final Map<Integer, Integer> totalUrlDistribution = new HashMap<>();
+    private final Set<String> inaccessibleRecords = new HashSet<>();
+    private int totalUrl = 0;
+    private int resolvableURL = 0;
+
+    private LinkResolver(Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary) {
+      this.consumer = consumer;
+      this.validationSummary = validationSummary;
+    }
+
+    private void resolve(InstanceLinks instanceLinks) {
+      var fileName = instanceLinks.fileName();
+      List<JsonValidationResult> validationResults = new ArrayList<>();
+      var urlCount = linkChecker.checkJsonLinks(instanceLinks.studyPHS(), fileName, instanceLinks.links(), validationResults);
+      validationSummary.updateValidationResults(validationResults);
       //update total url distribution
       updateDistribution(urlCount.getTotalURL(), totalUrlDistribution);
       totalUrl += urlCount.getTotalURL();
@@ -51,6 +131,8 @@ public class DataFileAccessibilityEvaluator {
       }
     }
 
-    updateAccessibilityResult(totalUrl, resolvableURL, consumer, totalUrlDistribution, inaccessibleRecords);
+    private void complete() {
+      updateAccessibilityResult(totalUrl, resolvableURL, consumer, totalUrlDistribution, inaccessibleRecords);
+    }
   }
 }
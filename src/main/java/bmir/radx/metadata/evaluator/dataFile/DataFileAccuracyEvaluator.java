@@ -35,47 +35,65 @@ public class DataFileAccuracyEvaluator {
                        Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts,
                        Consumer<EvaluationResult> consumer,
                        ValidationSummary<JsonValidationResult> validationSummary){
+    DataFileStage.run(start(studyPath, consumer, validationSummary), templateInstanceArtifacts);
+  }
+
+  public FieldProjection getFieldProjection(){
+    return FieldProjection.of(
+        InstanceArtifactPath.TITLE_PATH.getPath(),
+        InstanceArtifactPath.STUDY_NAME_PATH.getPath(),
+        InstanceArtifactPath.STUDY_PHS_PATH.getPath());
+  }
+
+  public DataFileStage start(Optional<Path> studyPath,
+                             Consumer<EvaluationResult> consumer,
+                             ValidationSummary<JsonValidationResult> validationSummary){
     Set<String> inaccurateInstances = new HashSet<>();
 
 //    //cross-check study metadata vs data file metadata if study path is provided
 //    studyPath.ifPresent(path -> studyDataFileCrossEvaluator.evaluate(path, inaccurateInstances, templateInstanceArtifacts, validationSummary));
 
-    //check Title is not Study Name
-    checkTitle(templateInstanceArtifacts, inaccurateInstances, validationSummary);
+    return new DataFileStage() {
+      private int totalDataFiles = 0;
 
-    int totalDataFiles = templateInstanceArtifacts.size();
-    int inaccurateInstancesCount = inaccurateInstances.size();
-    var rate = (double) (totalDataFiles - inaccurateInstancesCount) / totalDataFiles * 100;
-    consumer.accept(new EvaluationResult(ACCURACY, ACCURACY_RATE, rate));
-    consumer.accept(new EvaluationResult(ACCURACY, NUMBER_OF_INACCURATE_RECORDS, inaccurateInstancesCount));
-    consumer.accept(new EvaluationResult(ACCURACY, INACCURATE_DATA_FILES, inaccurateInstances));
-  }
+      @Override
+      public void accept(Path path, TemplateInstanceArtifact instance) {
+        //check Title is not Study Name
+        checkTitle(path, instance, inaccurateInstances, validationSummary);
+        totalDataFiles++;
+      }
 
-  private void checkTitle(Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts,
-                     Set<String> inaccurateInstances,
-                     ValidationSummary<JsonValidationResult> validationSummary){
-    for(var instanceEntry : templateInstanceArtifacts.entrySet()){
-      var instance = instanceEntry.getValue();
-      var path = instanceEntry.getKey();
-      var title = InstanceArtifactValueGetter.getTitle(instance);
-      var studyName = InstanceArtifactValueGetter.getStudyName(instance);
-      var phs = studyPhsGetter.getCleanStudyPhs(instance);
-      int count = 0;
-      if(title != null && title.equals(studyName)){
-        count +=1;
-        inaccurateInstances.add(phs);
-        validationSummary.addInvalidMetadata(phs);
-        validationSummary.updateValidationResult(
-            new JsonValidationResult(
-                phs,
-                path.getFileName().toString(),
-                InstanceArtifactPath.TITLE_PATH.getPath().substring(1),
-                IssueTypeMapping.IssueType.ACCURACY,
-                "Should be the title of the data file not the study",
-                null,
-                title)
-        );
+      @Override
+      public void complete() {
+        int inaccurateInstancesCount = inaccurateInstances.size();
+        var rate = (double) (totalDataFiles - inaccurateInstancesCount) / totalDataFiles * 100;
+        consumer.accept(new EvaluationResult(ACCURACY, ACCURACY_RATE, rate));
+        consumer.accept(new EvaluationResult(ACCURACY, NUMBER_OF_INACCURATE_RECORDS, inaccurateInstancesCount));
+        consumer.accept(new EvaluationResult(ACCURACY, INACCURATE_DATA_FILES, inaccurateInstances));
       }
+    };
+  }
+
+  private void checkTitle(Path path,
+                          TemplateInstanceArtifact instance,
+                          Set<String> inaccurateInstances,
+                          ValidationSummary<JsonValidationResult> validationSummary){
+    var title = InstanceArtifactValueGetter.getTitle(instance);
+    var studyName = InstanceArtifactValueGetter.getStudyName(instance);
+    var phs = studyPhsGetter.getCleanStudyPhs(instance);
+    if(title != null && title.equals(studyName)){
+      inaccurateInstances.add(phs);
+      validationSummary.addInvalidMetadata(phs);
+      validationSummary.updateValidationResult(
+          new JsonValidationResult(
+              phs,
+              path.getFileName().toString(),
+              InstanceArtifactPath.TITLE_PATH.getPath().substring(1),
+              IssueTypeMapping.IssueType.ACCURACY,
+              "Should be the title of the data file not the study",
+              null,
+              title)
+      );
     }
   }
 }
@@ -5,10 +5,11 @@ import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.sharedComponents.CompletionRateChecker;
+import bmir.radx.metadata.evaluator.sharedComponents.FieldCompletenessCounter;
 import bmir.radx.metadata.evaluator.util.FieldCategory;
 import bmir.radx.metadata.evaluator.util.InstanceArtifactValueGetter;
 import bmir.radx.metadata.evaluator.util.StudyPhsGetter;
-import bmir.radx.metadata.evaluator.util.TemplateGetter;
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
 import edu.stanford.bmir.radx.metadata.validator.lib.*;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.springframework.stereotype.Component;
@@ -25,46 +26,83 @@ import static bmir.radx.metadata.evaluator.util.FieldCategory.*;
 @Component
 public class DataFileCompletenessEvaluator {
   private final CompletionRateChecker completionRateChecker;
-  private final TemplateGetter templateGetter;
   private final StudyPhsGetter studyPhsGetter;
+  private final InstanceFieldWalker instanceFieldWalker;
 
-  public DataFileCompletenessEvaluator(CompletionRateChecker completionRateChecker, TemplateGetter templateGetter, StudyPhsGetter studyPhsGetter) {
+  public DataFileCompletenessEvaluator(CompletionRateChecker completionRateChecker, StudyPhsGetter studyPhsGetter, InstanceFieldWalker instanceFieldWalker) {
     this.completionRateChecker = completionRateChecker;
-    this.templateGetter = templateGetter;
     this.studyPhsGetter = studyPhsGetter;
+    this.instanceFieldWalker = instanceFieldWalker;
   }
 
   public void evaluate(Map<Path, TemplateInstanceArtifact> metadataInstances, Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
-    var templateSchemaArtifact = templateGetter.getDataFileTemplate();
+    DataFileStage.run(start(consumer, validationSummary), metadataInstances);
+  }
+
+  public FieldProjection getFieldProjection(){
+    // Every template field is counted
+    return FieldProjection.all();
+  }
+
+  public DataFileStage start(Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
+    return instanceFieldWalker.walk(List.of(visitor(consumer, validationSummary)));
+  }
+
+  public InstanceFieldVisitor visitor(Consumer<EvaluationResult> consumer, ValidationSummary<JsonValidationResult> validationSummary){
     Map<FieldCategory, Map<Integer, Integer>> completenessDistribution = new HashMap<>();
     Map<FieldCategory, Map<String, List<Double>>> completeness = new HashMap<>();
     for (var requirement : FieldCategory.values()) {
       completenessDistribution.put(requirement, new HashMap<>());
     }
 
-    if (!metadataInstances.isEmpty()) {
-      for (var instanceEntry: metadataInstances.entrySet()) {
-        var instance = instanceEntry.getValue();
-        var filePath = instanceEntry.getKey();
-        var fileName = filePath.getFileName().toString();
-        var templateInstanceValuesReporter = new TemplateInstanceValuesReporter(instance);
-        String phs = studyPhsGetter.getCleanStudyPhs(instance);
-        var completionResult = completionRateChecker.getSingleDataFileCompleteness(templateSchemaArtifact, templateInstanceValuesReporter);
+    return new InstanceFieldVisitor() {
+      private int evaluatedInstances = 0;
+      private String fileName;
+      private String phs;
+      private FieldCompletenessCounter counter;
+
+      @Override
+      public void startInstance(Path filePath, TemplateInstanceArtifact instance, TemplateFieldIndex fields) {
+        fileName = filePath.getFileName().toString();
+        phs = studyPhsGetter.getCleanStudyPhs(instance);
+        counter = new FieldCompletenessCounter(fields);
+      }
+
+      @Override
+      public void visitField(String path, int id, FieldValues fieldValues, boolean empty) {
+        counter.addField(path, empty);
+      }
+
+      @Override
+      public void visitAttributeValueField(AttributeValueFieldValues attributeValueField, boolean empty) {
+        counter.addAttributeValueField(attributeValueField.specificationPath(), empty);
+      }
+
+      @Override
+      public void endInstance() {
+        var completionResult = counter.getResult();
         completionRateChecker.updateCompletenessDistribution(completionResult, completenessDistribution);
         completionRateChecker.updateCompleteness(completionResult, completeness, phs);
         completionRateChecker.add2Database(completionResult, phs, fileName, validationSummary);
+        evaluatedInstances++;
       }
 
-      // Completeness
-      Map<FieldCategory, EvaluationMetric> completenessKeys = Map.of(
-          REQUIRED, REQUIRED_FIELDS_COMPLETENESS,
-          RECOMMENDED, RECOMMENDED_FIELDS_COMPLETENESS,
-          OPTIONAL, OPTIONAL_FIELDS_COMPLETENESS,
-          OVERALL, OVERALL_COMPLETENESS
-      );
-      completenessKeys.forEach((requirement, key) ->
-          consumer.accept(new EvaluationResult(COMPLETENESS, key, completeness.get(requirement)))
-      );
-    }
+      @Override
+      public void complete() {
+        if (evaluatedInstances == 0) {
+          return;
+        }
+        // Completeness
+        Map<FieldCategory, EvaluationMetric> completenessKeys = Map.of(
+            REQUIRED, REQUIRED_FIELDS_COMPLETENESS,
+            RECOMMENDED, RECOMMENDED_FIELDS_COMPLETENESS,
+            OPTIONAL, OPTIONAL_FIELDS_COMPLETENESS,
+            OVERALL, OVERALL_COMPLETENESS
+        );
+        completenessKeys.forEach((requirement, key) ->
+            consumer.accept(new EvaluationResult(COMPLETENESS, key, completeness.get(requirement)))
+        );
+      }
+    };
   }
 }
@@ -1,8 +1,10 @@
 package bmir.radx.metadata.evaluator.dataFile;
 
+import bmir.radx.metadata.evaluator.dataFile.generated.FieldValue;
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import bmir.radx.metadata.evaluator.util.InstanceArtifactPath;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
 import bmir.radx.metadata.evaluator.util.StudyPhsGetter;
 import com.tupilabs.human_name_parser.HumanNameParserBuilder;
@@ -42,29 +44,52 @@ public class DataFileConsistencyEvaluator {
                          Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts,
                          Consumer<EvaluationResult> consumer,
                          ValidationSummary<JsonValidationResult> validationSummary){
+        DataFileStage.run(start(studyPath, consumer, validationSummary), templateInstanceArtifacts);
+    }
+
+    public FieldProjection getFieldProjection(Optional<Path> studyPath){
+        var projection = FieldProjection.of(
+            DATA_FILE_CREATORS,
+            DATA_FILE_CONTRIBUTORS,
+            InstanceArtifactPath.STUDY_PHS_PATH.getPath());
+        return studyPath.isPresent() ? projection.union(studyDataFileCrossEvaluator.getFieldProjection()) : projection;
+    }
+
+    public DataFileStage start(Optional<Path> studyPath,
+                               Consumer<EvaluationResult> consumer,
+                               ValidationSummary<JsonValidationResult> validationSummary){
         Set<String> inconsistentInstances = new HashSet<>();
 
         //cross-check study metadata vs data file metadata if study path is provided
-        studyPath.ifPresent(path -> studyDataFileCrossEvaluator.evaluate(path, inconsistentInstances, templateInstanceArtifacts, validationSummary));
-
-        for(var instance : templateInstanceArtifacts.entrySet()){
-            var errors = validationSummary.getValidationResults().size();
-            var filePath = instance.getKey();
-            var instanceArtifact = instance.getValue();
-            evaluateSingleFile(filePath, instanceArtifact, validationSummary);
-            if(errors < validationSummary.getValidationResults().size()) {
-                var fileName = filePath.getFileName().toString();
-                inconsistentInstances.add(fileName);
-                validationSummary.addInvalidMetadata(fileName);
+        Optional<DataFileStage> crossCheck = studyPath.map(path -> studyDataFileCrossEvaluator.start(path, inconsistentInstances, validationSummary));
+
+        return new DataFileStage() {
+            private int totalDataFiles = 0;
+
+            @Override
+            public void accept(Path filePath, TemplateInstanceArtifact instanceArtifact) {
+                crossCheck.ifPresent(stage -> stage.accept(filePath, instanceArtifact));
+
+                var errors = validationSummary.countValidationResults(() -> evaluateSingleFile(filePath, instanceArtifact, validationSummary));
+                if(errors > 0) {
+                    var fileName = filePath.getFileName().toString();
+                    inconsistentInstances.add(fileName);
+                    validationSummary.addInvalidMetadata(fileName);
+                }
+                totalDataFiles++;
             }
-        }
 
-        int totalDataFiles = templateInstanceArtifacts.size();
-        int inconsistentInstancesCount = inconsistentInstances.size();
-        var rate = (double) (totalDataFiles - inconsistentInstancesCount) / totalDataFiles * 100;
-        consumer.accept(new EvaluationResult(CONSISTENCY, CONSISTENT_RECORD_RATE, rate));
-        consumer.accept(new EvaluationResult(CONSISTENCY, NUMBER_OF_INCONSISTENT_RECORDS, inconsistentInstancesCount));
-        consumer.accept(new EvaluationResult(CONSISTENCY, INCONSISTENT_RECORDS, inconsistentInstances));
+            @Override
+            public void complete() {
+                crossCheck.ifPresent(DataFileStage::complete);
+
+                int inconsistentInstancesCount = inconsistentInstances.size();
+                var rate = (double) (totalDataFiles - inconsistentInstancesCount) / totalDataFiles * 100;
+                consumer.accept(new EvaluationResult(CONSISTENCY, CONSISTENT_RECORD_RATE, rate));
+                consumer.accept(new EvaluationResult(CONSISTENCY, NUMBER_OF_INCONSISTENT_RECORDS, inconsistentInstancesCount));
+                consumer.accept(new EvaluationResult(CONSISTENCY, INCONSISTENT_RECORDS, inconsistentInstances));
+            }
+        };
     }
 
 
@@ -75,34 +100,38 @@ public class DataFileConsistencyEvaluator {
     }
 
     private void evaluateName(Path filePath, TemplateInstanceArtifact templateInstanceArtifact, ValidationSummary<JsonValidationResult> validationSummary, String element){
-        String nameField;
         String givenNameField;
         String familyNameField;
-        String typeField;
+        List<NameFields> elementInstances;
         String studyPhs = studyPhsGetter.getCleanStudyPhs(templateInstanceArtifact);
         String fileName = filePath.getFileName().toString();
+        FieldProjection.require(templateInstanceArtifact, element);
+        var metadata = TypedInstances.get(templateInstanceArtifact);
 
         if(element.equals(DATA_FILE_CREATORS)){
-            nameField = CREATOR_NAME;
             givenNameField = CREATOR_GIVEN_NAME;
             familyNameField = CREATOR_FAMILY_NAME;
-            typeField = CREATOR_TYPE;
+            elementInstances = metadata.isPresent()
+                ? metadata.get().dataFileCreators().stream()
+                    .map(creator -> new NameFields(creator.creatorName(), creator.creatorGivenName(), creator.creatorFamilyName(), creator.creatorType()))
+                    .toList()
+                : getNameFields(templateInstanceArtifact, element, CREATOR_NAME, givenNameField, familyNameField, CREATOR_TYPE);
         } else{
-            nameField = CONTRIBUTOR_NAME;
             givenNameField = CONTRIBUTOR_GIVEN_NAME;
             familyNameField = CONTRIBUTOR_FAMILY_NAME;
-            typeField = CONTRIBUTOR_TYPE;
+            elementInstances = metadata.isPresent()
+                ? metadata.get().dataFileContributors().stream()
+                    .map(contributor -> new NameFields(contributor.contributorName(), contributor.contributorGivenName(), contributor.contributorFamilyName(), contributor.contributorType()))
+                    .toList()
+                : getNameFields(templateInstanceArtifact, element, CONTRIBUTOR_NAME, givenNameField, familyNameField, CONTRIBUTOR_TYPE);
         }
 
-        var elementArtifacts = templateInstanceArtifact.multiInstanceElementInstances().get(element);
         int i = 0;
-        for(var elementArtifact: elementArtifacts){
-            var fields = elementArtifact.singleInstanceFieldInstances();
-            var name = fields.get(nameField).jsonLdValue();
-            var givenName = fields.get(givenNameField).jsonLdValue();
-            var familyName = fields.get(familyNameField).jsonLdValue();
-            var type = fields.get(typeField).label();
-            if(name.isPresent() && type.equals(Optional.of("Person"))){
+        for(var fields: elementInstances){
+            var name = fields.name().jsonLdValue();
+            var givenName = fields.givenName().jsonLdValue();
+            var familyName = fields.familyName().jsonLdValue();
+            if(name.isPresent() && "Person".equals(fields.type().label())){
                 //Using HumanNameParse Library
                 Name fullName = new Name(name.get());
                 HumanNameParserBuilder builder = new HumanNameParserBuilder(fullName);
@@ -192,4 +221,25 @@ public class DataFileConsistencyEvaluator {
     private String getErrorMessage(String fullName, String providedName, String filed){
         return filed + " [" + providedName + "] is inconsistent with the provided full name: [" + fullName + "]";
     }
+
+    /***
+     * This method reads the name fields of instances based on another template version by field name
+     */
+    private List<NameFields> getNameFields(TemplateInstanceArtifact templateInstanceArtifact, String element,
+                                           String nameField, String givenNameField, String familyNameField, String typeField){
+        var elementArtifacts = templateInstanceArtifact.multiInstanceElementInstances().getOrDefault(element, List.of());
+        List<NameFields> elementInstances = new ArrayList<>();
+        for(var elementArtifact: elementArtifacts){
+            var fields = elementArtifact.singleInstanceFieldInstances();
+            elementInstances.add(new NameFields(
+                FieldValue.bind(fields.get(nameField)),
+                FieldValue.bind(fields.get(givenNameField)),
+                FieldValue.bind(fields.get(familyNameField)),
+                FieldValue.bind(fields.get(typeField))));
+        }
+        return elementInstances;
+    }
+
+    private record NameFields(FieldValue name, FieldValue givenName, FieldValue familyName, FieldValue type) {
+    }
 }
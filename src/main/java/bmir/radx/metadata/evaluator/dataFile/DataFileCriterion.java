@@ -0,0 +1,35 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/***
+ * The criteria applied to data file metadata, in the order they are evaluated
+ */
+public enum DataFileCriterion {
+  COMPLETENESS,
+  VOCABULARIES,
+  ACCESSIBILITY,
+  ACCURACY,
+  CONSISTENCY,
+  UNIQUENESS,
+  VALIDITY,
+  LINGUISTIC_QUALITY;
+
+  /***
+   * This method parses a comma separated list of criteria names, e.g. "accuracy, uniqueness".
+   * A blank list selects all criteria.
+   */
+  public static Set<DataFileCriterion> parse(String criteria) {
+    if (criteria == null || criteria.isBlank()) {
+      return EnumSet.allOf(DataFileCriterion.class);
+    }
+    Set<DataFileCriterion> selected = EnumSet.noneOf(DataFileCriterion.class);
+    for (var name : criteria.split(",")) {
+      if (!name.isBlank()) {
+        selected.add(valueOf(name.trim().toUpperCase().replace('-', '_').replace(' ', '_')));
+      }
+    }
+    return selected;
+  }
+}
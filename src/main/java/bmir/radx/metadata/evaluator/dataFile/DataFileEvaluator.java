@@ -5,16 +5,30 @@ import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.sharedComponents.Evaluator;
+import bmir.radx.metadata.evaluator.sharedComponents.StageScheduler;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
 import java.util.function.Consumer;
 
+import static bmir.radx.metadata.evaluator.dataFile.DataFileCriterion.*;
+import static bmir.radx.metadata.evaluator.sharedComponents.StageScheduler.Pool.CPU;
+import static bmir.radx.metadata.evaluator.sharedComponents.StageScheduler.Pool.IO;
+
 @Component
 public class DataFileEvaluator implements Evaluator<JsonValidationResult> {
   private final Logger logger = LoggerFactory.getLogger(DataFileEvaluator.class);
@@ -27,6 +41,35 @@ public class DataFileEvaluator implements Evaluator<JsonValidationResult> {
   private final DataFileUniquenessEvaluator uniquenessEvaluator;
   private final DataFileAccuracyEvaluator accuracyEvaluator;
   private final DataFileLingQualityEvaluator lingQualityEvaluator;
+  private final InstanceFieldWalker instanceFieldWalker;
+  private static final String FIELD_WALK = "FIELD_WALK";
+
+  /**
+   * Evaluate instances one at a time as they are read instead of loading the whole folder first.
+   */
+  @Value("${data.file.evaluation.streaming:false}")
+  private boolean streaming;
+
+  /**
+   * Comma separated criteria to evaluate, e.g. "accuracy,uniqueness". All criteria are evaluated when empty.
+   * Only the fields read by the selected criteria are parsed from the data file metadata.
+   */
+  @Value("${data.file.evaluation.criteria:}")
+  private String criteria;
+
+  /**
+   * Number of criteria evaluated at once on the CPU pool, 0 for the number of processors and 1 to evaluate the
+   * criteria one after another. Accessibility and accuracy wait for remote services and run on a separate pool.
+   */
+  @Value("${data.file.evaluation.stage.parallelism:0}")
+  private int stageParallelism;
+
+  /**
+   * Walk the field values of each instance once for completeness, vocabularies, linguistic quality and the links of
+   * accessibility, instead of once per criterion. Only used when the whole folder is loaded.
+   */
+  @Value("${data.file.evaluation.fused:true}")
+  private boolean fused;
 
   public DataFileEvaluator(DataFileMetadataReader dataFileMetadataReader,
                            DataFileCompletenessEvaluator completenessEvaluator,
@@ -36,7 +79,8 @@ public class DataFileEvaluator implements Evaluator<JsonValidationResult> {
                            DataFileConsistencyEvaluator consistencyEvaluator,
                            DataFileUniquenessEvaluator uniquenessEvaluator,
                            DataFileAccuracyEvaluator accuracyEvaluator,
-                           DataFileLingQualityEvaluator lingQualityEvaluator) {
+                           DataFileLingQualityEvaluator lingQualityEvaluator,
+                           InstanceFieldWalker instanceFieldWalker) {
     this.dataFileMetadataReader = dataFileMetadataReader;
     this.completenessEvaluator = completenessEvaluator;
     this.validityEvaluator = validityEvaluator;
@@ -46,6 +90,7 @@ public class DataFileEvaluator implements Evaluator<JsonValidationResult> {
     this.uniquenessEvaluator = uniquenessEvaluator;
     this.accuracyEvaluator = accuracyEvaluator;
     this.lingQualityEvaluator = lingQualityEvaluator;
+    this.instanceFieldWalker = instanceFieldWalker;
   }
 
   public EvaluationReport<JsonValidationResult> evaluate(Path... filePaths){
@@ -55,39 +100,212 @@ public class DataFileEvaluator implements Evaluator<JsonValidationResult> {
     var results = new ArrayList<EvaluationResult>();
     Consumer<EvaluationResult> consumer = results::add;
 
-    var metadataInstances = dataFileMetadataReader.readDataFileMetadata(dataFilePath);
-    var metadataInstancesList = new ArrayList<>(metadataInstances.values());
     var validationResults = new ArrayList<JsonValidationResult>();
     var invalidMetadata = new HashSet<String>();
     var validationReport = new ValidationSummary<>(validationResults, invalidMetadata);
 
-    logger.info("Start to evaluate the completeness of data file metadata");
-    completenessEvaluator.evaluate(metadataInstances, consumer, validationReport);
+    //If study path is also provided, apply cross-check of metadata between study and data file metadata
+    Optional<Path> studyPath = (numberOfPaths > 1) ? Optional.of(filePaths[1]) : Optional.empty();
 
-    logger.info("Start to evaluate the vocabularies of data file metadata");
-    dataFileVocabularyEvaluator.evaluate(metadataInstancesList, consumer);
+    var selectedCriteria = DataFileCriterion.parse(criteria);
+    var projection = getFieldProjection(selectedCriteria, studyPath);
+    if (!projection.includesAll()) {
+      logger.info("Only reading " + projection + " of data file metadata for " + selectedCriteria);
+    }
 
-    logger.info("Start to evaluate the accessibility of data file metadata");
-    accessibilityEvaluator.evaluate(metadataInstances, consumer, validationReport);
+    if (streaming) {
+      evaluateStreaming(dataFilePath, selectedCriteria, projection, studyPath, consumer, validationReport);
+      return new EvaluationReport<>(results, validationReport.getValidationResults());
+    }
 
-    //If study path is also provided, apply cross-check of metadata between study and data file metadata
-    Optional<Path> studyPath = (numberOfPaths > 1) ? Optional.of(filePaths[1]) : Optional.empty();
+    // Only validity reads the raw text, so the records are only kept for it, until it has validated them
+    Map<Path, TemplateInstanceArtifact> metadataInstances = new LinkedHashMap<>();
+    Queue<DataFileRecord> dataFileRecords = new ArrayDeque<>();
+    dataFileMetadataReader.forEachDataFileRecord(dataFilePath, projection, record -> {
+      metadataInstances.put(record.path(), record.artifact());
+      if (selectedCriteria.contains(VALIDITY)) {
+        dataFileRecords.add(record);
+      }
+    });
 
-    logger.info("Start to evaluate the accuracy of data file metadata");
-    accuracyEvaluator.evaluate(studyPath, metadataInstances, consumer, validationReport);
+    // Validity counts the instances found invalid by the stages before it, so it waits for them
+    var scheduler = new StageScheduler<JsonValidationResult>(logger, stageParallelism);
+    // The criteria of the field walk only replay what the walk found, links are still resolved on the I/O pool
+    var fieldWalk = new FieldWalk(fused ? selectedCriteria : Set.of());
+    if (!fieldWalk.isEmpty()) {
+      scheduler.add(FIELD_WALK, CPU, (stageConsumer, stageSummary) -> {
+        logger.info("Start to walk the field values of data file metadata for " + fieldWalk.getCriteria());
+        DataFileStage.run(instanceFieldWalker.walk(fieldWalk.getVisitors()), metadataInstances);
+      });
+    }
+    for (var criterion : selectedCriteria) {
+      switch (criterion) {
+        case COMPLETENESS -> scheduler.add(criterion.name(), CPU, (stageConsumer, stageSummary) -> {
+          if (fieldWalk.contains(criterion)) {
+            fieldWalk.replay(criterion, stageConsumer, stageSummary);
+            return;
+          }
+          logger.info("Start to evaluate the completeness of data file metadata");
+          completenessEvaluator.evaluate(metadataInstances, stageConsumer, stageSummary);
+        }, FIELD_WALK);
+        case VOCABULARIES -> scheduler.add(criterion.name(), CPU, (stageConsumer, stageSummary) -> {
+          if (fieldWalk.contains(criterion)) {
+            fieldWalk.replay(criterion, stageConsumer, stageSummary);
+            return;
+          }
+          logger.info("Start to evaluate the vocabularies of data file metadata");
+          dataFileVocabularyEvaluator.evaluate(new ArrayList<>(metadataInstances.values()), stageConsumer);
+        }, FIELD_WALK);
+        case ACCESSIBILITY -> scheduler.add(criterion.name(), IO, (stageConsumer, stageSummary) -> {
+          if (fieldWalk.contains(criterion)) {
+            logger.info("Start to resolve the links of data file metadata");
+            accessibilityEvaluator.resolveLinks(fieldWalk.getInstanceLinks(), stageConsumer, stageSummary);
+            return;
+          }
+          logger.info("Start to evaluate the accessibility of data file metadata");
+          accessibilityEvaluator.evaluate(metadataInstances, stageConsumer, stageSummary);
+        }, FIELD_WALK);
+        case ACCURACY -> scheduler.add(criterion.name(), IO, (stageConsumer, stageSummary) -> {
+          logger.info("Start to evaluate the accuracy of data file metadata");
+          accuracyEvaluator.evaluate(studyPath, metadataInstances, stageConsumer, stageSummary);
+        });
+        case CONSISTENCY -> scheduler.add(criterion.name(), CPU, (stageConsumer, stageSummary) -> {
+          logger.info("Start to evaluate the consistency of data file metadata");
+          consistencyEvaluator.evaluate(studyPath, metadataInstances, stageConsumer, stageSummary);
+        });
+        case UNIQUENESS -> scheduler.add(criterion.name(), CPU, (stageConsumer, stageSummary) -> {
+          logger.info("Start to evaluate the uniqueness of data file metadata");
+          uniquenessEvaluator.evaluate(metadataInstances, stageConsumer, stageSummary);
+        });
+        case VALIDITY -> scheduler.add(criterion.name(), CPU, (stageConsumer, stageSummary) -> {
+          logger.info("Start to evaluate the validity of data file metadata");
+          DataFileStage.drain(validityEvaluator.start(stageConsumer, stageSummary), dataFileRecords);
+        }, ACCESSIBILITY.name(), ACCURACY.name(), CONSISTENCY.name(), UNIQUENESS.name());
+        case LINGUISTIC_QUALITY -> scheduler.add(criterion.name(), CPU, (stageConsumer, stageSummary) -> {
+          if (fieldWalk.contains(criterion)) {
+            fieldWalk.replay(criterion, stageConsumer, stageSummary);
+            return;
+          }
+          logger.info("Start to evaluate the linguistic quality of data file metadata");
+          lingQualityEvaluator.evaluate(metadataInstances, stageConsumer, stageSummary);
+        }, FIELD_WALK);
+      }
+    }
+    scheduler.run(consumer, validationReport);
 
-    logger.info("Start to evaluate the consistency of data file metadata");
-    consistencyEvaluator.evaluate(studyPath, metadataInstances, consumer, validationReport);
+    return new EvaluationReport<>(results, validationReport.getValidationResults());
+  }
 
-    logger.info("Start to evaluate the uniqueness of data file metadata");
-    uniquenessEvaluator.evaluate(metadataInstances, consumer, validationReport);
+  /***
+   * The visitors of the criteria that only look at one field value at a time, walked together by a single stage.
+   * Each visitor writes to its own results and validation summary, which the stage of its criterion replays,
+   * so the report is the same as when every criterion walks the instances on its own.
+   */
+  private class FieldWalk {
+    private final Map<DataFileCriterion, List<EvaluationResult>> results = new EnumMap<>(DataFileCriterion.class);
+    private final Map<DataFileCriterion, ValidationSummary<JsonValidationResult>> validationSummaries = new EnumMap<>(DataFileCriterion.class);
+    private final List<DataFileAccessibilityEvaluator.InstanceLinks> instanceLinks = new ArrayList<>();
+    private final List<InstanceFieldVisitor> visitors = new ArrayList<>();
 
-    logger.info("Start to evaluate the validity of data file metadata");
-    validityEvaluator.evaluate(metadataInstances, consumer, validationReport);
+    private FieldWalk(Set<DataFileCriterion> selectedCriteria) {
+      for (var criterion : selectedCriteria) {
+        var criterionResults = new ArrayList<EvaluationResult>();
+        var criterionSummary = new ValidationSummary<JsonValidationResult>(new ArrayList<>(), new HashSet<>());
+        switch (criterion) {
+          case COMPLETENESS -> visitors.add(completenessEvaluator.visitor(criterionResults::add, criterionSummary));
+          case VOCABULARIES -> visitors.add(dataFileVocabularyEvaluator.visitor(criterionResults::add));
+          case LINGUISTIC_QUALITY -> visitors.add(lingQualityEvaluator.visitor(criterionSummary));
+          case ACCESSIBILITY -> visitors.add(accessibilityEvaluator.extractLinks(instanceLinks::add, () -> {}));
+          default -> {
+            continue;
+          }
+        }
+        results.put(criterion, criterionResults);
+        validationSummaries.put(criterion, criterionSummary);
+      }
+    }
 
-    logger.info("Start to evaluate the linguistic quality of data file metadata");
-    lingQualityEvaluator.evaluate(metadataInstances, consumer, validationReport);
+    private boolean isEmpty() {
+      return visitors.isEmpty();
+    }
 
-    return new EvaluationReport<>(results, validationReport.getValidationResults());
+    private boolean contains(DataFileCriterion criterion) {
+      return results.containsKey(criterion);
+    }
+
+    private Set<DataFileCriterion> getCriteria() {
+      return results.keySet();
+    }
+
+    private List<InstanceFieldVisitor> getVisitors() {
+      return visitors;
+    }
+
+    private List<DataFileAccessibilityEvaluator.InstanceLinks> getInstanceLinks() {
+      return instanceLinks;
+    }
+
+    private void replay(DataFileCriterion criterion,
+                        Consumer<EvaluationResult> stageConsumer,
+                        ValidationSummary<JsonValidationResult> stageSummary) {
+      results.get(criterion).forEach(stageConsumer);
+      var criterionSummary = validationSummaries.get(criterion);
+      stageSummary.updateValidationResults(criterionSummary.getValidationResults());
+      stageSummary.getInvalidMetadata().addAll(criterionSummary.getInvalidMetadata());
+    }
+  }
+
+  /***
+   * Streams every data file metadata instance through all criteria one at a time,
+   * so only the corpus-level aggregates of each criterion are kept in memory
+   */
+  private void evaluateStreaming(Path dataFilePath,
+                                 Set<DataFileCriterion> selectedCriteria,
+                                 FieldProjection projection,
+                                 Optional<Path> studyPath,
+                                 Consumer<EvaluationResult> consumer,
+                                 ValidationSummary<JsonValidationResult> validationReport){
+    // Stages are completed in the same order as the batch evaluation above
+    List<DataFileStage> stages = new ArrayList<>();
+    for (var criterion : selectedCriteria) {
+      stages.add(switch (criterion) {
+        case COMPLETENESS -> completenessEvaluator.start(consumer, validationReport);
+        case VOCABULARIES -> dataFileVocabularyEvaluator.start(consumer);
+        case ACCESSIBILITY -> accessibilityEvaluator.start(consumer, validationReport);
+        case ACCURACY -> accuracyEvaluator.start(studyPath, consumer, validationReport);
+        case CONSISTENCY -> consistencyEvaluator.start(studyPath, consumer, validationReport);
+        case UNIQUENESS -> uniquenessEvaluator.start(consumer, validationReport);
+        case VALIDITY -> validityEvaluator.start(consumer, validationReport);
+        case LINGUISTIC_QUALITY -> lingQualityEvaluator.start(consumer, validationReport);
+      });
+    }
+
+    logger.info("Start to evaluate data file metadata in streaming mode");
+    dataFileMetadataReader.forEachDataFileRecord(dataFilePath, projection, record -> {
+      for (var stage : stages) {
+        stage.accept(record);
+      }
+    });
+    stages.forEach(DataFileStage::complete);
+  }
+
+  /***
+   * This method returns the union of the fields read by the selected criteria
+   */
+  private FieldProjection getFieldProjection(Set<DataFileCriterion> selectedCriteria, Optional<Path> studyPath){
+    var projection = FieldProjection.of();
+    for (var criterion : selectedCriteria) {
+      projection = projection.union(switch (criterion) {
+        case COMPLETENESS -> completenessEvaluator.getFieldProjection();
+        case VOCABULARIES -> dataFileVocabularyEvaluator.getFieldProjection();
+        case ACCESSIBILITY -> accessibilityEvaluator.getFieldProjection();
+        case ACCURACY -> accuracyEvaluator.getFieldProjection();
+        case CONSISTENCY -> consistencyEvaluator.getFieldProjection(studyPath);
+        case UNIQUENESS -> uniquenessEvaluator.getFieldProjection();
+        case VALIDITY -> validityEvaluator.getFieldProjection();
+        case LINGUISTIC_QUALITY -> lingQualityEvaluator.getFieldProjection();
+      });
+    }
+    return projection;
   }
 }
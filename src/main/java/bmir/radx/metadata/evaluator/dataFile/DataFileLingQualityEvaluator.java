@@ -7,8 +7,8 @@ import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.sharedComponents.LinguisticQualityChecker;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
 import bmir.radx.metadata.evaluator.util.StudyPhsGetter;
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
 import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
 import org.metadatacenter.artifacts.model.core.FieldInstanceArtifact;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.springframework.stereotype.Component;
@@ -22,27 +22,46 @@ import java.util.function.Consumer;
 public class DataFileLingQualityEvaluator {
   private final String HTML_FIELD_NAME = "Data Characteristics Table in HTML";
   private final StudyPhsGetter studyPhsGetter;
+  private final InstanceFieldWalker instanceFieldWalker;
 
-  public DataFileLingQualityEvaluator(StudyPhsGetter studyPhsGetter) {
+  public DataFileLingQualityEvaluator(StudyPhsGetter studyPhsGetter, InstanceFieldWalker instanceFieldWalker) {
     this.studyPhsGetter = studyPhsGetter;
+    this.instanceFieldWalker = instanceFieldWalker;
   }
 
 
   public void evaluate(Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts,
                        Consumer<EvaluationResult> consumer,
                        ValidationSummary<JsonValidationResult> validationSummary){
-    for(var instanceEntry: templateInstanceArtifacts.entrySet()){
-      var path = instanceEntry.getKey();
-      var instance = instanceEntry.getValue();
-      var phs = studyPhsGetter.getCleanStudyPhs(instance);
-      var valueReporter = new TemplateInstanceValuesReporter(instance);
-      var values = valueReporter.getValues();
-      for(var value: values.entrySet()){
-        var fieldPath = value.getKey();
+    DataFileStage.run(start(consumer, validationSummary), templateInstanceArtifacts);
+  }
+
+  public FieldProjection getFieldProjection(){
+    // Every free text field is checked
+    return FieldProjection.all();
+  }
+
+  public DataFileStage start(Consumer<EvaluationResult> consumer,
+                             ValidationSummary<JsonValidationResult> validationSummary){
+    return instanceFieldWalker.walk(List.of(visitor(validationSummary)));
+  }
+
+  public InstanceFieldVisitor visitor(ValidationSummary<JsonValidationResult> validationSummary){
+    return new InstanceFieldVisitor() {
+      private Path path;
+      private String phs;
+
+      @Override
+      public void startInstance(Path path, TemplateInstanceArtifact instance, TemplateFieldIndex fields) {
+        this.path = path;
+        this.phs = studyPhsGetter.getCleanStudyPhs(instance);
+      }
+
+      @Override
+      public void visitField(String fieldPath, int id, FieldValues fieldValues, boolean empty) {
         if(fieldPath.contains(HTML_FIELD_NAME)){
-          continue;
+          return;
         }
-        var fieldValues = value.getValue();
         var jsonLdValue = fieldValues.jsonLdValue().orElse(null);
         var jsonLdId = fieldValues.jsonLdId().orElse(null);
 
@@ -54,7 +73,11 @@ public class DataFileLingQualityEvaluator {
           checkString(jsonLdId.toString(), phs, fieldPath, path, fieldValues, validationSummary);
         }
       }
-    }
+
+      @Override
+      public void complete() {
+      }
+    };
   }
 
   private void checkString(String value, String phs, String fieldLoc, Path filePath, FieldValues fieldValues, ValidationSummary<JsonValidationResult> validationSummary){
@@ -1,70 +1,484 @@
 package bmir.radx.metadata.evaluator.dataFile;
 
+import bmir.radx.metadata.evaluator.util.SymbolTable;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.metadatacenter.artifacts.model.reader.JsonArtifactReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 @Component
 public class DataFileMetadataReader {
+  private static final int READ_AHEAD_PER_THREAD = 4;
+  private static final long MAPPED_READ_THRESHOLD = 1024 * 1024;
+  static final int NDJSON_RANGE_SIZE = 4 * 1024 * 1024;
+  static final String NDJSON_FILE_NAME_FIELD = "_fileName";
+  static final String NDJSON_INSTANCE_FIELD = "instance";
+  private final Logger logger = LoggerFactory.getLogger(DataFileMetadataReader.class);
   private final ObjectMapper mapper;
+  private final OversizedValueStore oversizedValueStore;
 
-  public DataFileMetadataReader(ObjectMapper mapper) {
+  /**
+   * Number of worker threads used to read and parse data file metadata.
+   * A value of 0 or less uses one thread per available processor, 1 reads serially.
+   */
+  @Value("${data.file.reader.parallelism:0}")
+  private int parallelism;
+
+  public DataFileMetadataReader(ObjectMapper mapper, OversizedValueStore oversizedValueStore) {
     this.mapper = mapper;
+    this.oversizedValueStore = oversizedValueStore;
   }
 
+  /***
+   * This method returns the data file metadata instances ordered by their path,
+   * regardless of the number of threads used to read them
+   */
   public Map<Path, TemplateInstanceArtifact> readDataFileMetadata(Path filePath) {
-    Map<Path, TemplateInstanceArtifact> artifacts = new HashMap<>();
+    Map<Path, TemplateInstanceArtifact> artifacts = new LinkedHashMap<>();
+    forEachDataFile(filePath, artifacts::put);
+    return artifacts;
+  }
+
+  /***
+   * This method hands the data file metadata instances to the consumer one at a time, ordered by their path.
+   * Only a bounded number of instances are parsed ahead of the consumer, so memory does not grow with the
+   * number of files in the folder.
+   */
+  public void forEachDataFile(Path filePath, BiConsumer<Path, TemplateInstanceArtifact> consumer) {
+    forEachDataFileRecord(filePath, record -> consumer.accept(record.path(), record.artifact()));
+  }
+
+  /***
+   * This method returns the data file records ordered by their path. Each record keeps the raw JSON
+   * text next to the parsed artifact, so criteria that need the text do not read the file again
+   */
+  public Map<Path, DataFileRecord> readDataFileRecords(Path filePath) {
+    return readDataFileRecords(filePath, FieldProjection.all());
+  }
+
+  /***
+   * Same as readDataFileRecords, but only the top-level subtrees in the projection are parsed and kept
+   */
+  public Map<Path, DataFileRecord> readDataFileRecords(Path filePath, FieldProjection projection) {
+    Map<Path, DataFileRecord> records = new LinkedHashMap<>();
+    forEachDataFileRecord(filePath, projection, record -> records.put(record.path(), record));
+    return records;
+  }
+
+  /***
+   * Same as forEachDataFile, but hands over the whole record read from disk
+   */
+  public void forEachDataFileRecord(Path filePath, Consumer<DataFileRecord> consumer) {
+    forEachDataFileRecord(filePath, FieldProjection.all(), consumer);
+  }
+
+  public void forEachDataFileRecord(Path filePath, FieldProjection projection, Consumer<DataFileRecord> consumer) {
+    var fileName = filePath.getFileName().toString().toLowerCase();
     if (Files.isDirectory(filePath)) {
-      try {
-        Files.walkFileTree(filePath, new SimpleFileVisitor<>() {
-          @Override
-          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-            if (file.toString().endsWith(".json")) {
-              var artifact = processSingleFile(file);
-              if (artifact != null) {
-                artifacts.put(file, artifact);
-              }
+      var files = collectJsonFiles(filePath);
+      var tasks = files.stream()
+          .map(file -> (Callable<DataFileRecord>) () -> processSingleFile(file, projection))
+          .iterator();
+      read(tasks, getParallelism(files.size()), record -> accept(consumer, record));
+    } else if (fileName.endsWith(".zip")) {
+      readZip(filePath, projection, consumer);
+    } else if (fileName.endsWith(".tar.gz") || fileName.endsWith(".tgz")) {
+      readTarGz(filePath, projection, consumer);
+    } else if (fileName.endsWith(".ndjson") || fileName.endsWith(".jsonl")) {
+      readNdjson(filePath, projection, consumer);
+    } else {
+      accept(consumer, processSingleFile(filePath, projection));
+    }
+  }
+
+  /***
+   * Zip entries can be inflated independently, so both decompression and parsing run on the worker threads.
+   * Entries are handed over ordered by their name.
+   */
+  private void readZip(Path archivePath, FieldProjection projection, Consumer<DataFileRecord> consumer) {
+    try (var zipFile = new ZipFile(archivePath.toFile())) {
+      var entries = zipFile.stream()
+          .filter(entry -> !entry.isDirectory() && entry.getName().endsWith(".json"))
+          .sorted(Comparator.comparing(ZipEntry::getName))
+          .toList();
+      var tasks = entries.stream()
+          .map(entry -> (Callable<DataFileRecord>) () -> {
+            try (var inputStream = zipFile.getInputStream(entry)) {
+              return processSingleEntry(archivePath.resolve(entry.getName()), inputStream.readAllBytes(), projection);
             }
-            return FileVisitResult.CONTINUE;
+          })
+          .iterator();
+      read(tasks, getParallelism(entries.size()), record -> accept(consumer, record));
+    } catch (IOException e) {
+      throw new RuntimeException("Error read archive " + archivePath + ": " + e.getMessage(), e);
+    }
+  }
+
+  /***
+   * A gzip stream can only be inflated sequentially, so entries are decompressed on the calling thread and only
+   * parsed on the worker threads. To hand entries over ordered by their name, like zip entries and folders, the
+   * decompressed entries of the archive are held in memory until they are parsed.
+   */
+  private void readTarGz(Path archivePath, FieldProjection projection, Consumer<DataFileRecord> consumer) {
+    var entries = new TreeMap<String, byte[]>();
+    try (var tarInputStream = new TarArchiveInputStream(
+        new GzipCompressorInputStream(new BufferedInputStream(Files.newInputStream(archivePath))))) {
+      TarArchiveEntry entry;
+      while ((entry = tarInputStream.getNextEntry()) != null) {
+        if (entry.isFile() && entry.getName().endsWith(".json")) {
+          entries.put(entry.getName(), tarInputStream.readAllBytes());
+        }
+      }
+    } catch (IOException e) {
+      throw new RuntimeException("Error read archive " + archivePath + ": " + e.getMessage(), e);
+    }
+    var tasks = new ArrayList<Callable<DataFileRecord>>(entries.size());
+    while (!entries.isEmpty()) {
+      var entry = entries.pollFirstEntry();
+      var content = entry.getValue();
+      var entryPath = archivePath.resolve(entry.getKey());
+      tasks.add(() -> processSingleEntry(entryPath, content, projection));
+    }
+    read(tasks.iterator(), getParallelism(tasks.size()), record -> accept(consumer, record));
+  }
+
+  /***
+   * Each line of a NDJSON file is {"_fileName": "<original file name>", "instance": {...}}. The file is split into
+   * byte ranges ending at a line break, which are read and parsed on the worker threads, so only a bounded number
+   * of ranges are in memory. Instances are handed over in line order, which matches the order of a folder when
+   * the lines are sorted by file name, otherwise a warning is logged once for the file.
+   */
+  private void readNdjson(Path filePath, FieldProjection projection, Consumer<DataFileRecord> consumer) {
+    try (var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      var ranges = splitIntoLineRanges(channel, NDJSON_RANGE_SIZE);
+      var tasks = ranges.stream()
+          .map(range -> (Callable<List<DataFileRecord>>) () -> readNdjsonRange(filePath, channel, range, projection))
+          .iterator();
+      var previousName = new String[1];
+      var warned = new boolean[1];
+      read(tasks, getParallelism(ranges.size()), records -> {
+        for (var record : records) {
+          var name = record.path().getFileName().toString();
+          if (!warned[0] && previousName[0] != null && previousName[0].compareTo(name) > 0) {
+            logger.warn("NDJSON lines of {} are not sorted by file name at {}, instances are evaluated in line order",
+                filePath, name);
+            warned[0] = true;
           }
+          previousName[0] = name;
+          accept(consumer, record);
+        }
+      });
+    } catch (IOException e) {
+      throw new RuntimeException("Error read file " + filePath + ": " + e.getMessage(), e);
+    }
+  }
+
+  /***
+   * This method splits the file into ranges of about rangeSize bytes, each extended to the end of its last line
+   */
+  static List<LineRange> splitIntoLineRanges(FileChannel channel, long rangeSize) throws IOException {
+    long size = channel.size();
+    List<LineRange> ranges = new ArrayList<>();
+    var buffer = ByteBuffer.allocate(8192);
+    long start = 0;
+    while (start < size) {
+      long end = Math.min(size, findNextLineStart(channel, start + rangeSize, buffer));
+      ranges.add(new LineRange(start, end));
+      start = end;
+    }
+    return ranges;
+  }
+
+  private static long findNextLineStart(FileChannel channel, long offset, ByteBuffer buffer) throws IOException {
+    long position = offset;
+    while (true) {
+      buffer.clear();
+      int read = channel.read(buffer, position);
+      if (read <= 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return position + i + 1;
+        }
+      }
+      position += read;
+    }
+  }
+
+  private List<DataFileRecord> readNdjsonRange(Path filePath, FileChannel channel, LineRange range,
+                                               FieldProjection projection) throws IOException {
+    // Positional reads do not move the channel position, so the ranges can be read concurrently
+    var content = new byte[(int) (range.end() - range.start())];
+    var buffer = ByteBuffer.wrap(content);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, range.start() + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of file at " + (range.start() + buffer.position()));
+      }
+    }
+
+    List<DataFileRecord> records = new ArrayList<>();
+    int lineStart = 0;
+    for (int i = 0; i <= content.length; i++) {
+      if (i == content.length || content[i] == '\n') {
+        if (!isBlank(content, lineStart, i)) {
+          records.add(readNdjsonLine(filePath, content, lineStart, i, projection));
+        }
+        lineStart = i + 1;
+      }
+    }
+    return records;
+  }
+
+  /***
+   * This method finds the instance object of the line without building it, and parses the exact bytes of the
+   * instance like the content of a single file, so validation sees the same JSON text as for a folder
+   */
+  private DataFileRecord readNdjsonLine(Path filePath, byte[] content, int lineStart, int lineEnd,
+                                        FieldProjection projection) throws IOException {
+    var line = Arrays.copyOfRange(content, lineStart, lineEnd);
+    String fileName = null;
+    byte[] instance = null;
+    try (var parser = mapper.getFactory().createParser(line)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("NDJSON line of " + filePath + " is not a JSON object");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        var fieldName = parser.currentName();
+        var token = parser.nextToken();
+        if (fieldName.equals(NDJSON_FILE_NAME_FIELD)) {
+          fileName = parser.getValueAsString();
+        } else if (fieldName.equals(NDJSON_INSTANCE_FIELD) && token == JsonToken.START_OBJECT) {
+          int instanceStart = (int) parser.currentTokenLocation().getByteOffset();
+          parser.skipChildren();
+          int instanceEnd = (int) parser.currentLocation().getByteOffset();
+          instance = Arrays.copyOfRange(line, instanceStart, instanceEnd);
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+    if (fileName == null || instance == null) {
+      throw new IOException("NDJSON line of " + filePath + " must have the " + NDJSON_FILE_NAME_FIELD
+          + " and " + NDJSON_INSTANCE_FIELD + " fields");
+    }
+    return processSingleEntry(filePath.resolve(fileName), instance, projection);
+  }
+
+  private static boolean isBlank(byte[] content, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!Character.isWhitespace(content[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-          @Override
-          public FileVisitResult visitFileFailed(Path file, IOException exc) {
-            System.err.println("Failed to access file: " + file + " - " + exc.getMessage());
-            return FileVisitResult.CONTINUE;
+  private List<Path> collectJsonFiles(Path directory) {
+    List<Path> files = new ArrayList<>();
+    try {
+      Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+          if (file.toString().endsWith(".json")) {
+            files.add(file);
           }
-        });
-      } catch (IOException e) {
-        System.err.println("Error processing files in directory " + filePath + ": " + e.getMessage());
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) {
+          System.err.println("Failed to access file: " + file + " - " + exc.getMessage());
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      System.err.println("Error processing files in directory " + directory + ": " + e.getMessage());
+    }
+    Collections.sort(files);
+    return files;
+  }
+
+  private <T> void read(Iterator<Callable<T>> tasks, int threads, Consumer<T> consumer) {
+    if (threads <= 1) {
+      try {
+        while (tasks.hasNext()) {
+          consumer.accept(tasks.next().call());
+        }
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
       }
     } else {
-      var artifact = processSingleFile(filePath);
-      if (artifact != null) {
-        artifacts.put(filePath, artifact);
+      readInParallel(tasks, threads, consumer);
+    }
+  }
+
+  private <T> void readInParallel(Iterator<Callable<T>> tasks, int threads, Consumer<T> consumer) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      // Keep a bounded window of files in flight and hand them over in submission order,
+      // so the result does not depend on thread scheduling
+      int readAhead = threads * READ_AHEAD_PER_THREAD;
+      Deque<Future<T>> inFlight = new ArrayDeque<>(readAhead);
+      do {
+        while (tasks.hasNext() && inFlight.size() < readAhead) {
+          inFlight.add(executor.submit(tasks.next()));
+        }
+        if (!inFlight.isEmpty()) {
+          consumer.accept(inFlight.poll().get());
+        }
+      } while (!inFlight.isEmpty());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while reading data file metadata", e);
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
       }
+      throw new RuntimeException(cause);
+    } finally {
+      executor.shutdownNow();
     }
-    return artifacts;
   }
 
-  private TemplateInstanceArtifact processSingleFile(Path filePath){
+  private int getParallelism(int numberOfFiles) {
+    int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    return Math.max(1, Math.min(threads, numberOfFiles));
+  }
+
+  private void accept(Consumer<DataFileRecord> consumer, DataFileRecord record) {
+    if (record.artifact() != null) {
+      consumer.accept(record);
+    }
+  }
+
+  private DataFileRecord processSingleFile(Path filePath, FieldProjection projection){
+    try {
+      return processSingleEntry(filePath, readBytes(filePath), projection);
+    } catch (IOException e) {
+      throw new RuntimeException("Error read file " + filePath  + ": " + e.getMessage(), e);
+    }
+  }
+
+  private DataFileRecord processSingleEntry(Path path, byte[] content, FieldProjection projection){
     try {
-      var instanceNode = mapper.readTree(Files.readString(filePath));
       var jsonSchemaArtifactReader = new JsonArtifactReader();
-      return jsonSchemaArtifactReader.readTemplateInstanceArtifact((ObjectNode) instanceNode);
+      if (projection.includesAll()) {
+        var instanceNode = mapper.readTree(content);
+        compact(instanceNode);
+        var artifact = jsonSchemaArtifactReader.readTemplateInstanceArtifact((ObjectNode) instanceNode);
+        return new DataFileRecord(path, content, artifact);
+      }
+      // The raw content is only needed for validation, which reads all fields
+      var instanceNode = readProjectedTree(content, projection);
+      compact(instanceNode);
+      var artifact = jsonSchemaArtifactReader.readTemplateInstanceArtifact(instanceNode);
+      FieldProjection.register(artifact, projection);
+      return new DataFileRecord(path, null, artifact);
     } catch (IOException e) {
-      throw new RuntimeException("Error read file " + filePath  + ": " + e.getMessage());
+      throw new RuntimeException("Error read file " + path  + ": " + e.getMessage(), e);
     }
   }
+
+  /***
+   * This method moves an oversized HTML table out of the heap and shares the strings that recur across instances,
+   * before the artifact reader copies the references into the instance artifact
+   */
+  private void compact(JsonNode instanceNode) throws IOException {
+    oversizedValueStore.spill(instanceNode);
+    SymbolTable.internTextValues(instanceNode);
+  }
+
+  /***
+   * This method parses the top-level object with the streaming parser, and skips the subtrees of fields
+   * that are not in the projection without building them
+   */
+  private ObjectNode readProjectedTree(byte[] content, FieldProjection projection) throws IOException {
+    try (var parser = mapper.getFactory().createParser(content)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Data file metadata is not a JSON object");
+      }
+      var instanceNode = mapper.createObjectNode();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        var fieldName = parser.currentName();
+        parser.nextToken();
+        if (projection.includes(fieldName)) {
+          instanceNode.set(fieldName, mapper.readTree(parser));
+        } else {
+          parser.skipChildren();
+        }
+      }
+      return instanceNode;
+    }
+  }
+
+  /***
+   * This method reads the file into a byte array of the exact file size, so Jackson can parse the UTF-8 bytes
+   * directly without decoding them into a String first. Large files are memory mapped and copied in one go
+   * instead of going through the temporary direct buffer used by channel reads.
+   */
+  static byte[] readBytes(Path filePath) throws IOException {
+    try (var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File is too large: " + size + " bytes");
+      }
+      var content = new byte[(int) size];
+      if (size >= MAPPED_READ_THRESHOLD) {
+        channel.map(FileChannel.MapMode.READ_ONLY, 0, size).get(content);
+      } else {
+        var buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // keep reading until the array is full or the file ends
+        }
+      }
+      return content;
+    }
+  }
+
+  record LineRange(long start, long end) {
+  }
 }
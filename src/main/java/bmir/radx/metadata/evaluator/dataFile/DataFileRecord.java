@@ -0,0 +1,17 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/***
+ * A data file metadata instance as read from disk: the raw UTF-8 bytes and the artifact parsed from them.
+ * The file is read and parsed once during ingestion and shared by every criterion.
+ * The content is null when only a projection of the fields was read.
+ */
+public record DataFileRecord(Path path, byte[] content, TemplateInstanceArtifact artifact) {
+  public String contentAsString() {
+    return new String(content, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,52 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+
+/***
+ * A single evaluation criterion applied to data file metadata one instance at a time.
+ * Only the aggregates needed for the corpus-level results are kept between calls,
+ * which are reported once all instances have been accepted.
+ */
+public interface DataFileStage {
+  void accept(Path path, TemplateInstanceArtifact instance);
+
+  /***
+   * Criteria that need more than the parsed artifact, such as the raw JSON text, override this method
+   */
+  default void accept(DataFileRecord record) {
+    accept(record.path(), record.artifact());
+  }
+
+  void complete();
+
+  static void run(DataFileStage stage, Map<Path, TemplateInstanceArtifact> instances) {
+    for (var instance : instances.entrySet()) {
+      stage.accept(instance.getKey(), instance.getValue());
+    }
+    stage.complete();
+  }
+
+  static void run(DataFileStage stage, Collection<DataFileRecord> records) {
+    for (var record : records) {
+      stage.accept(record);
+    }
+    stage.complete();
+  }
+
+  /***
+   * Same as run, but each record is taken off the queue before it is accepted, so its raw text can be collected
+   * as soon as the stage is done with it
+   */
+  static void drain(DataFileStage stage, Queue<DataFileRecord> records) {
+    DataFileRecord record;
+    while ((record = records.poll()) != null) {
+      stage.accept(record);
+    }
+    stage.complete();
+  }
+}
@@ -3,6 +3,7 @@ package bmir.radx.metadata.evaluator.dataFile;
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import bmir.radx.metadata.evaluator.util.InstanceArtifactPath;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
 import bmir.radx.metadata.evaluator.util.StudyPhsGetter;
 import org.metadatacenter.artifacts.model.core.InstanceArtifact;
@@ -18,6 +19,9 @@ import static bmir.radx.metadata.evaluator.EvaluationMetric.*;
 
 @Component
 public class DataFileUniquenessEvaluator {
+  private static final String DATA_FILE_IDENTITY = "Data File Identity";
+  private static final String FILE_NAME = "File Name";
+  private static final String VERSION = "Version";
   private final StudyPhsGetter studyPhsGetter;
 
   public DataFileUniquenessEvaluator(StudyPhsGetter studyPhsGetter) {
@@ -28,78 +32,58 @@ public class DataFileUniquenessEvaluator {
   public void evaluate(Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts,
                        Consumer<EvaluationResult> consumer,
                        ValidationSummary<JsonValidationResult> validationSummary){
-
-    var duplicatesMap = checkDuplicates(templateInstanceArtifacts);
-
-    Set<String> duplicates = new HashSet<>();
-    for(var entry: duplicatesMap.entrySet()){
-      var paths = entry.getValue();
-      if (paths.size() > 1) { // If current instance have duplicates
-        duplicates.addAll(paths);
-        //add to invalid metadata list and update validation results
-        validationSummary.addMultiInvalidMetadata(paths);
-        var filePath = entry.getKey();
-        var fileName = filePath.getFileName().toString();
-        var studyPhs = studyPhsGetter.getCleanStudyPhs(templateInstanceArtifacts.get(filePath));
-        String errorMessage = "Have duplicates: " + paths.toString();
-        validationSummary.updateValidationResult(
-            new JsonValidationResult(studyPhs, fileName,null, IssueTypeMapping.IssueType.UNIQUENESS, errorMessage, null, null)
-        );
-      }
-    }
-
-    //update evaluation report
-    int totalDataFiles = templateInstanceArtifacts.size();
-    int duplicatesCount = duplicates.size();
-    var rate = (double) (totalDataFiles - duplicatesCount) / totalDataFiles * 100;
-    consumer.accept(new EvaluationResult(UNIQUENESS, UNIQUENESS_RATE, rate));
-    consumer.accept(new EvaluationResult(UNIQUENESS, DUPLICATE_RECORDS_NUMBER, duplicatesCount));
-    consumer.accept(new EvaluationResult(UNIQUENESS, DUPLICATE_RECORDS, duplicates));
+    DataFileStage.run(start(consumer, validationSummary), templateInstanceArtifacts);
   }
 
-  private Map<Path, List<String>> checkDuplicates(Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts) {
-    Map<Path, List<String>> identicalGroups = new HashMap<>();
-    Set<Path> visited = new HashSet<>();
-
-    // Convert entry set for easy access to both path and instance
-    List<Map.Entry<Path, TemplateInstanceArtifact>> entries = new ArrayList<>(templateInstanceArtifacts.entrySet());
-
-    for (int i = 0; i < entries.size(); i++) {
-      var entry1 = entries.get(i);
-      Path path1 = entry1.getKey();
-      var instance1 = entry1.getValue();
+  public FieldProjection getFieldProjection(){
+    return FieldProjection.of(
+        InstanceArtifactPath.FILE_NAME_PATH.getPath(),
+        InstanceArtifactPath.STUDY_PHS_PATH.getPath());
+  }
 
-      if (visited.contains(path1)) {
-        continue;
+  /***
+   * Two data file metadata instances are duplicates when they share the same file name and version,
+   * so instances are grouped by that identity as they arrive instead of being compared pairwise
+   */
+  public DataFileStage start(Consumer<EvaluationResult> consumer,
+                             ValidationSummary<JsonValidationResult> validationSummary){
+    Map<DataFileIdentity, DuplicateGroup> identityGroups = new LinkedHashMap<>();
+
+    return new DataFileStage() {
+      private int totalDataFiles = 0;
+
+      @Override
+      public void accept(Path path, TemplateInstanceArtifact instance) {
+        var group = identityGroups.computeIfAbsent(getIdentity(instance), identity -> new DuplicateGroup(path, studyPhsGetter.getCleanStudyPhs(instance)));
+        group.paths().add(path.toString());
+        totalDataFiles++;
       }
 
-      List<String> duplicates = new ArrayList<>();
-
-      for (int j = i + 1; j < entries.size(); j++) {
-        var entry2 = entries.get(j);
-        Path path2 = entry2.getKey();
-        var instance2 = entry2.getValue();
-
-        if (visited.contains(path2)) {
-          continue;
+      @Override
+      public void complete() {
+        Set<String> duplicates = new HashSet<>();
+        for(var group: identityGroups.values()){
+          var paths = group.paths();
+          if (paths.size() > 1) { // If current instance have duplicates
+            duplicates.addAll(paths);
+            //add to invalid metadata list and update validation results
+            validationSummary.addMultiInvalidMetadata(paths);
+            var fileName = group.firstPath().getFileName().toString();
+            String errorMessage = "Have duplicates: " + paths.toString();
+            validationSummary.updateValidationResult(
+                new JsonValidationResult(group.studyPhs(), fileName,null, IssueTypeMapping.IssueType.UNIQUENESS, errorMessage, null, null)
+            );
+          }
         }
 
-        // Check if the two instances are identical
-        if (areIdentical(instance1, instance2)) {
-          duplicates.add(path2.toString());
-          visited.add(path2);
-        }
-      }
-
-      // If duplicates are found, add the current path and its group to identicalGroups
-      if (!duplicates.isEmpty()) {
-        duplicates.add(0, path1.toString()); // Add the original path to the beginning of the group
-        identicalGroups.put(path1, duplicates);
-        visited.add(path1); // Mark the original path as visited
+        //update evaluation report
+        int duplicatesCount = duplicates.size();
+        var rate = (double) (totalDataFiles - duplicatesCount) / totalDataFiles * 100;
+        consumer.accept(new EvaluationResult(UNIQUENESS, UNIQUENESS_RATE, rate));
+        consumer.accept(new EvaluationResult(UNIQUENESS, DUPLICATE_RECORDS_NUMBER, duplicatesCount));
+        consumer.accept(new EvaluationResult(UNIQUENESS, DUPLICATE_RECORDS, duplicates));
       }
-    }
-
-    return identicalGroups;
+    };
   }
 
   public void checkDuplicatesInInstance(TemplateInstanceArtifact templateInstanceArtifact, Consumer<EvaluationResult> handler){
@@ -144,16 +128,25 @@ public class DataFileUniquenessEvaluator {
     return f1.equals(f2);
   }
 
-  private boolean areIdentical(TemplateInstanceArtifact t1, TemplateInstanceArtifact t2){
-    String dataFileIdentity = "Data File Identity";
-    String fileName = "File Name";
-    String version = "Version";
-    var fileName1 = t1.singleInstanceElementInstances().get(dataFileIdentity).singleInstanceFieldInstances().get(fileName).jsonLdValue();
-    var fileName2 = t2.singleInstanceElementInstances().get(dataFileIdentity).singleInstanceFieldInstances().get(fileName).jsonLdValue();
-    var version1 = t1.singleInstanceElementInstances().get(dataFileIdentity).singleInstanceFieldInstances().get(version).jsonLdValue();
-    var version2 = t2.singleInstanceElementInstances().get(dataFileIdentity).singleInstanceFieldInstances().get(version).jsonLdValue();
+  private DataFileIdentity getIdentity(TemplateInstanceArtifact templateInstanceArtifact){
+    FieldProjection.require(templateInstanceArtifact, DATA_FILE_IDENTITY);
+    var metadata = TypedInstances.get(templateInstanceArtifact);
+    if (metadata.isPresent()) {
+      var identity = metadata.get().dataFileIdentity();
+      return new DataFileIdentity(identity.fileName().jsonLdValue(), identity.version().jsonLdValue());
+    }
+    // Other template versions are read by field name
+    var identityFields = templateInstanceArtifact.singleInstanceElementInstances().get(DATA_FILE_IDENTITY).singleInstanceFieldInstances();
+    return new DataFileIdentity(identityFields.get(FILE_NAME).jsonLdValue(), identityFields.get(VERSION).jsonLdValue());
+  }
 
-    return fileName1.equals(fileName2) && version1.equals(version2);
+  private record DataFileIdentity(Optional<String> fileName, Optional<String> version) {
+  }
+
+  private record DuplicateGroup(Path firstPath, String studyPhs, List<String> paths) {
+    DuplicateGroup(Path firstPath, String studyPhs) {
+      this(firstPath, studyPhs, new ArrayList<>());
+    }
   }
 
   public <T extends InstanceArtifact> ComparisonResult areAllUnique(List<T> artifacts) {
@@ -41,13 +41,16 @@ public class DataFileValidityEvaluator {
   private final ValidatorFactory validatorFactory;
   private final TemplateGetter templateGetter;
   private final StudyPhsGetter studyPhsGetter;
+  private final OversizedValueStore oversizedValueStore;
   private final Cache<ControlledTermValueConstraints, Map<String, String>> cache;
 
-  public DataFileValidityEvaluator(ObjectMapper mapper, ValidatorFactory validatorFactory, TemplateGetter templateGetter, StudyPhsGetter studyPhsGetter) {
+  public DataFileValidityEvaluator(ObjectMapper mapper, ValidatorFactory validatorFactory, TemplateGetter templateGetter,
+                                   StudyPhsGetter studyPhsGetter, OversizedValueStore oversizedValueStore) {
     this.mapper = mapper;
     this.templateGetter = templateGetter;
     this.validatorFactory = validatorFactory;
     this.studyPhsGetter = studyPhsGetter;
+    this.oversizedValueStore = oversizedValueStore;
     this.cache = Caffeine.newBuilder()
         .expireAfterWrite(10, TimeUnit.MINUTES) // Cache expiration
         .maximumSize(100) // Maximum cache size
@@ -57,32 +60,68 @@ public class DataFileValidityEvaluator {
   public void evaluate(Map<Path, TemplateInstanceArtifact> templateInstanceArtifacts,
                                                           Consumer<EvaluationResult> consumer,
                                                           ValidationSummary<JsonValidationResult> validationSummary){
-    List<JsonValidationResult> results = validationSummary.getValidationResults();
+    DataFileStage.run(start(consumer, validationSummary), templateInstanceArtifacts);
+  }
+
+  public void evaluate(Collection<DataFileRecord> dataFileRecords,
+                       Consumer<EvaluationResult> consumer,
+                       ValidationSummary<JsonValidationResult> validationSummary){
+    DataFileStage.run(start(consumer, validationSummary), dataFileRecords);
+  }
+
+  public FieldProjection getFieldProjection(){
+    // The whole instance is validated against the template
+    return FieldProjection.all();
+  }
+
+  public DataFileStage start(Consumer<EvaluationResult> consumer,
+                             ValidationSummary<JsonValidationResult> validationSummary){
     Set<String> invalidInstances = validationSummary.getInvalidMetadata();
-    var templateString = templateGetter.getDataFileTemplateString();
-    for(var instance: templateInstanceArtifacts.entrySet()){
-      var path  = instance.getKey();
-      var fileName = path.getFileName().toString();
-      var studyPhs = studyPhsGetter.getCleanStudyPhs(instance.getValue());
-      String instanceString = null;
-      try {
-        instanceString = Files.readString(path);
-      } catch (IOException e) {
-        throw new RuntimeException("Unable to read file " + path);
-      }
-      if(!isValid(studyPhs, fileName, templateString, instanceString, instance.getValue(), results)){
-        invalidInstances.add(fileName);
+    return new DataFileStage() {
+      private int totalDataFiles = 0;
+
+      @Override
+      public void accept(Path path, TemplateInstanceArtifact instance) {
+        // Only reached when the caller has the parsed artifact without its text. Entries of archives and NDJSON
+        // files get a path under the archive which is not a file, their text is only in the DataFileRecord.
+        if (!Files.isRegularFile(path)) {
+          throw new IllegalArgumentException("Data file metadata " + path
+              + " is not a file, validate the DataFileRecord read with it instead");
+        }
+        byte[] content = null;
+        try {
+          content = Files.readAllBytes(path);
+        } catch (IOException e) {
+          throw new RuntimeException("Unable to read file " + path);
+        }
+        accept(new DataFileRecord(path, content, instance));
       }
-    }
 
-    int totalDataFiles = templateInstanceArtifacts.size();
-    int invalidDataFiles = invalidInstances.size();
-    var rate = (double) (totalDataFiles - invalidDataFiles) / totalDataFiles * 100;
+      @Override
+      public void accept(DataFileRecord record) {
+        var instance = record.artifact();
+        var instanceString = record.contentAsString();
+        var fileName = record.path().getFileName().toString();
+        var studyPhs = studyPhsGetter.getCleanStudyPhs(instance);
+        var templateString = templateGetter.getCompiledDataFileTemplate(instance).content();
+        List<JsonValidationResult> results = new ArrayList<>();
+        if(!isValid(studyPhs, fileName, templateString, instanceString, instance, results)){
+          invalidInstances.add(fileName);
+        }
+        validationSummary.updateValidationResults(results);
+        totalDataFiles++;
+      }
 
-    consumer.accept(new EvaluationResult(VALIDITY, VALIDATION_PASS_RATE, rate));
-    consumer.accept(new EvaluationResult(VALIDITY, NUMBER_OF_INVALID_RECORDS, invalidDataFiles));
-    consumer.accept(new EvaluationResult(VALIDITY, INVALID_DATA_FILE_METADATA, invalidInstances));
+      @Override
+      public void complete() {
+        int invalidDataFiles = invalidInstances.size();
+        var rate = (double) (totalDataFiles - invalidDataFiles) / totalDataFiles * 100;
 
+        consumer.accept(new EvaluationResult(VALIDITY, VALIDATION_PASS_RATE, rate));
+        consumer.accept(new EvaluationResult(VALIDITY, NUMBER_OF_INVALID_RECORDS, invalidDataFiles));
+        consumer.accept(new EvaluationResult(VALIDITY, INVALID_DATA_FILE_METADATA, invalidInstances));
+      }
+    };
   }
 
   public boolean isValid(String studyPhs, String fileName, String templateString, String instanceString, TemplateInstanceArtifact instanceArtifact, List<JsonValidationResult> results) {
@@ -105,7 +144,8 @@ public class DataFileValidityEvaluator {
       if(result.validationLevel().equals(ValidationLevel.ERROR)){
         errorCount += 1;
         var pointer = result.pointer().replace("\"", "").substring(1);
-        var value = JsonInstanceValueGetter.getValue(instanceArtifact, pointer);
+        // The artifact only holds a placeholder for a spilled table, the reported value is the table itself
+        var value = oversizedValueStore.resolve(JsonInstanceValueGetter.getValue(instanceArtifact, pointer));
         errors.add(new JsonValidationResult(
             studyPhs,
             fileName,
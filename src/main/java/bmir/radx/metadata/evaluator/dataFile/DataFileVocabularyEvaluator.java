@@ -1,16 +1,14 @@
 package bmir.radx.metadata.evaluator.dataFile;
 
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
-import bmir.radx.metadata.evaluator.util.ReporterGetter;
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
 import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
-import org.metadatacenter.artifacts.model.visitors.TemplateReporter;
 import org.springframework.stereotype.Component;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.function.Consumer;
 
 import static bmir.radx.metadata.evaluator.EvaluationCriterion.VOCABULARIES_DISTRIBUTION;
@@ -19,49 +17,64 @@ import static bmir.radx.metadata.evaluator.sharedComponents.DistributionManager.
 
 @Component
 public class DataFileVocabularyEvaluator {
-  private final FieldsCollector fieldsCollector;
-  private final ReporterGetter reporterGetter;
+  private final InstanceFieldWalker instanceFieldWalker;
 
-  public DataFileVocabularyEvaluator(ReporterGetter reporterGetter) {
-    this.reporterGetter = reporterGetter;
-    fieldsCollector = new FieldsCollector();
+  public DataFileVocabularyEvaluator(InstanceFieldWalker instanceFieldWalker) {
+    this.instanceFieldWalker = instanceFieldWalker;
   }
 
   public void evaluate(List<TemplateInstanceArtifact> templateInstanceArtifacts, Consumer<EvaluationResult> handler){
-    var templateReporter = reporterGetter.getTemplateReporter();
-    var ctFrequency = new HashMap<String, Integer>();
-    var filledCtCountsFrequency = new HashMap<Integer, Integer>();
+    var stage = start(handler);
     for(var instance : templateInstanceArtifacts){
-      var instanceReporter = reporterGetter.getTemplateInstanceValuesReporter(instance);
-      evaluateSingleDataFile(templateReporter, instanceReporter, ctFrequency, filledCtCountsFrequency);
+      stage.accept(null, instance);
     }
+    stage.complete();
+  }
 
-    handler.accept(new EvaluationResult(VOCABULARIES_DISTRIBUTION, FILLED_CONTROLLED_TERMS_COUNT_DISTRIBUTION, filledCtCountsFrequency));
-    handler.accept(new EvaluationResult(VOCABULARIES_DISTRIBUTION, CONTROLLED_TERMS_DISTRIBUTION, ctFrequency));
+  public FieldProjection getFieldProjection(){
+    // Every controlled term field is read
+    return FieldProjection.all();
   }
 
-  private void evaluateSingleDataFile(TemplateReporter templateReporter,
-                                     TemplateInstanceValuesReporter valuesReporter,
-                                     Map<String, Integer> ctFrequency,
-                                     Map<Integer, Integer> filledCtCountsFrequency){
+  public DataFileStage start(Consumer<EvaluationResult> handler){
+    return instanceFieldWalker.walk(List.of(visitor(handler)));
+  }
+
+  public InstanceFieldVisitor visitor(Consumer<EvaluationResult> handler){
     //todo check it is a valid controlled term
-    var values = valuesReporter.getValues();
-    int filledCtCounts = 0;
+    var ctFrequency = new HashMap<String, Integer>();
+    var filledCtCountsFrequency = new HashMap<Integer, Integer>();
+    return new InstanceFieldVisitor() {
+      private TemplateFieldIndex templateFields;
+      private int filledCtCounts;
 
-    for (Map.Entry<String, FieldValues> fieldEntry : values.entrySet()) {
-      var path = fieldEntry.getKey();
-      var fieldValue = fieldEntry.getValue();
-      var valueConstraint = templateReporter.getValueConstraints(path);
+      @Override
+      public void startInstance(Path path, TemplateInstanceArtifact instance, TemplateFieldIndex fields) {
+        templateFields = fields;
+        filledCtCounts = 0;
+      }
 
-      if(!fieldsCollector.isEmptyField(fieldValue) && valueConstraint.isPresent() && valueConstraint.get().isControlledTermValueConstraint()){
-        filledCtCounts++;
-        var prefLabel = fieldValue.label();
-        if(prefLabel.isPresent() && !prefLabel.get().isEmpty()){
-          updateDistribution(prefLabel.get(), ctFrequency);
+      @Override
+      public void visitField(String path, int id, FieldValues fieldValue, boolean empty) {
+        if(templateFields.isControlledTerm(id) && !empty){
+          filledCtCounts++;
+          var prefLabel = fieldValue.label();
+          if(prefLabel.isPresent() && !prefLabel.get().isEmpty()){
+            updateDistribution(prefLabel.get(), ctFrequency);
+          }
         }
       }
-    }
 
-    updateDistribution(filledCtCounts, filledCtCountsFrequency);
+      @Override
+      public void endInstance() {
+        updateDistribution(filledCtCounts, filledCtCountsFrequency);
+      }
+
+      @Override
+      public void complete() {
+        handler.accept(new EvaluationResult(VOCABULARIES_DISTRIBUTION, FILLED_CONTROLLED_TERMS_COUNT_DISTRIBUTION, filledCtCountsFrequency));
+        handler.accept(new EvaluationResult(VOCABULARIES_DISTRIBUTION, CONTROLLED_TERMS_DISTRIBUTION, ctFrequency));
+      }
+    };
   }
 }
@@ -0,0 +1,105 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/***
+ * The top-level template fields and elements a criterion reads from data file metadata instances.
+ * Ingestion skips every other top-level subtree when not all criteria are evaluated.
+ * JSON-LD keys, such as @context, @id and schema:isBasedOn, are always kept.
+ * The projection an instance was read with is kept by instance identity, so reading a skipped field fails
+ * instead of returning an empty value.
+ */
+public final class FieldProjection {
+  private static final FieldProjection ALL = new FieldProjection(null);
+  private static final Cache<TemplateInstanceArtifact, FieldProjection> PROJECTED_INSTANCES = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+  private final Set<String> fields;
+
+  private FieldProjection(Set<String> fields) {
+    this.fields = fields;
+  }
+
+  public static FieldProjection all() {
+    return ALL;
+  }
+
+  /***
+   * This method creates a projection from template paths such as "/Data File Titles[0]/Title",
+   * only the top-level field or element of each path is kept
+   */
+  public static FieldProjection of(String... paths) {
+    Set<String> fields = new HashSet<>();
+    for (var path : paths) {
+      fields.add(getTopLevelField(path));
+    }
+    return new FieldProjection(Collections.unmodifiableSet(fields));
+  }
+
+  public FieldProjection union(FieldProjection other) {
+    if (includesAll() || other.includesAll()) {
+      return ALL;
+    }
+    Set<String> union = new HashSet<>(fields);
+    union.addAll(other.fields);
+    return new FieldProjection(Collections.unmodifiableSet(union));
+  }
+
+  public boolean includesAll() {
+    return fields == null;
+  }
+
+  public boolean includes(String key) {
+    return includesAll() || isJsonLdKey(key) || fields.contains(key);
+  }
+
+  /***
+   * This method records that only the fields of the projection were read into the instance
+   */
+  static void register(TemplateInstanceArtifact instance, FieldProjection projection) {
+    if (!projection.includesAll()) {
+      PROJECTED_INSTANCES.put(instance, projection);
+    }
+  }
+
+  /***
+   * This method throws when the top-level field or element of one of the paths was skipped while reading the
+   * instance, i.e. when it is missing from the projection of a criterion reading it
+   */
+  public static void require(TemplateInstanceArtifact instance, String... paths) {
+    var projection = PROJECTED_INSTANCES.getIfPresent(instance);
+    if (projection == null) {
+      return;
+    }
+    for (var path : paths) {
+      var field = getTopLevelField(path);
+      if (!projection.includes(field)) {
+        throw new IllegalStateException(field + " was not read, it is not in the field projection " + projection);
+      }
+    }
+  }
+
+  private static boolean isJsonLdKey(String key) {
+    return key.startsWith("@") || key.contains(":");
+  }
+
+  private static String getTopLevelField(String path) {
+    var field = path.startsWith("/") ? path.substring(1) : path;
+    int separator = field.indexOf('/');
+    if (separator >= 0) {
+      field = field.substring(0, separator);
+    }
+    return field.replaceAll("\\[\\d+\\]$", "");
+  }
+
+  @Override
+  public String toString() {
+    return includesAll() ? "all fields" : fields.toString();
+  }
+}
@@ -0,0 +1,30 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
+import edu.stanford.bmir.radx.metadata.validator.lib.AttributeValueFieldValues;
+import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+
+import java.nio.file.Path;
+
+/***
+ * A per-field check of data file metadata driven by InstanceFieldWalker. Every visitor of a walk sees the fields
+ * of an instance in the same pass, so the values, field ids and emptiness are computed once for all of them.
+ */
+public interface InstanceFieldVisitor {
+  default void startInstance(Path path, TemplateInstanceArtifact instance, TemplateFieldIndex fields) {
+  }
+
+  /***
+   * @param id the template field id of the path, or -1 when the path is not a field of the template
+   */
+  void visitField(String path, int id, FieldValues fieldValues, boolean empty);
+
+  default void visitAttributeValueField(AttributeValueFieldValues attributeValueField, boolean empty) {
+  }
+
+  default void endInstance() {
+  }
+
+  void complete();
+}
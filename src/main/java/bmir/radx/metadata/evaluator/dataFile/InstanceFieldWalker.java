@@ -0,0 +1,65 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.util.InstanceView;
+import bmir.radx.metadata.evaluator.util.ReporterGetter;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/***
+ * Walks the flattened values of every data file metadata instance once and hands each field to all visitors,
+ * instead of every criterion iterating the instances and their values on its own.
+ */
+@Component
+public class InstanceFieldWalker {
+  private final ReporterGetter reporterGetter;
+  private final FieldsCollector fieldsCollector;
+
+  public InstanceFieldWalker(ReporterGetter reporterGetter, FieldsCollector fieldsCollector) {
+    this.reporterGetter = reporterGetter;
+    this.fieldsCollector = fieldsCollector;
+  }
+
+  /***
+   * This method returns a stage that walks each accepted instance and completes the visitors in the given order
+   */
+  public DataFileStage walk(List<InstanceFieldVisitor> visitors) {
+    return new DataFileStage() {
+      @Override
+      public void accept(Path path, TemplateInstanceArtifact instance) {
+        var fields = reporterGetter.getTemplateFieldIndex(instance);
+        var view = InstanceView.of(instance);
+        for (var visitor : visitors) {
+          visitor.startInstance(path, instance, fields);
+        }
+        for (var fieldEntry : view.getValues().entrySet()) {
+          var fieldPath = fieldEntry.getKey();
+          var fieldValues = fieldEntry.getValue();
+          int id = fields.getId(fieldPath);
+          boolean empty = fieldsCollector.isEmptyField(fieldValues);
+          for (var visitor : visitors) {
+            visitor.visitField(fieldPath, id, fieldValues, empty);
+          }
+        }
+        for (var attributeValueField : view.getAttributeValueFields()) {
+          boolean empty = fieldsCollector.isEmptyField(attributeValueField.fieldValues());
+          for (var visitor : visitors) {
+            visitor.visitAttributeValueField(attributeValueField, empty);
+          }
+        }
+        for (var visitor : visitors) {
+          visitor.endInstance();
+        }
+      }
+
+      @Override
+      public void complete() {
+        for (var visitor : visitors) {
+          visitor.complete();
+        }
+      }
+    };
+  }
+}
@@ -0,0 +1,122 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.util.InstanceArtifactPath;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/***
+ * Per-run spill file for the Data Characteristics Table in HTML, by far the largest value of a data file instance.
+ * A table above the threshold is appended to the spill file while the instance is parsed, and the instance only
+ * keeps a short placeholder referencing the offset and length of the value. The table is read back from a memory
+ * mapping of the spill file when StudyDataFileCrossEvaluator resolves the placeholder.
+ * Only this field is spilled: the other criteria either skip it or only check that it is filled in, so every
+ * other value is kept as parsed.
+ */
+@Component
+public class OversizedValueStore {
+  private static final String JSON_LD_VALUE = "@value";
+  private static final JsonPointer SPILLED_FIELD = JsonPointer.compile(InstanceArtifactPath.DATA_CHAR_SUMMARY_PATH.getPath());
+  static final String PLACEHOLDER_PREFIX = "\u0000oversized-value:";
+  private volatile FileChannel spillFile;
+  private volatile MappedByteBuffer mapping;
+  private long size;
+
+  /**
+   * Tables longer than this number of characters are stored in the spill file. A value of 0 or less disables it.
+   */
+  @Value("${data.file.oversized.value.threshold:0}")
+  private int threshold;
+
+  public boolean isEnabled() {
+    return threshold > 0;
+  }
+
+  /***
+   * This method replaces an oversized Data Characteristics Table in HTML of the instance with a placeholder
+   */
+  public void spill(JsonNode instanceNode) throws IOException {
+    if (!isEnabled()) {
+      return;
+    }
+    var field = instanceNode.at(SPILLED_FIELD);
+    var value = field.path(JSON_LD_VALUE);
+    if (field instanceof ObjectNode fieldNode && value.isTextual() && value.textValue().length() > threshold) {
+      fieldNode.put(JSON_LD_VALUE, write(value.textValue()));
+    }
+  }
+
+  /***
+   * This method returns the value referenced by a placeholder, any other value is returned as is
+   */
+  public String resolve(String value) {
+    if (value == null || !value.startsWith(PLACEHOLDER_PREFIX)) {
+      return value;
+    }
+    var reference = value.substring(PLACEHOLDER_PREFIX.length()).split(":");
+    long offset = Long.parseLong(reference[0]);
+    int length = Integer.parseInt(reference[1]);
+    try {
+      if (offset + length > Integer.MAX_VALUE) {
+        // A single mapping is limited to 2 GB, values past it are mapped on their own
+        return StandardCharsets.UTF_8.decode(spillFile.map(FileChannel.MapMode.READ_ONLY, offset, length)).toString();
+      }
+      return StandardCharsets.UTF_8.decode(getMapping(offset + length).slice((int) offset, length)).toString();
+    } catch (IOException e) {
+      throw new RuntimeException("Error read oversized value at " + offset + ": " + e.getMessage(), e);
+    }
+  }
+
+  /***
+   * This method returns a mapping of the spill file covering at least the given end. The file is mapped once all
+   * instances are read, and only mapped again when a value was spilled after the current mapping was made.
+   */
+  private MappedByteBuffer getMapping(long end) throws IOException {
+    var current = mapping;
+    if (current != null && current.capacity() >= end) {
+      return current;
+    }
+    synchronized (this) {
+      if (mapping == null || mapping.capacity() < end) {
+        mapping = spillFile.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+      }
+      return mapping;
+    }
+  }
+
+  private synchronized String write(String value) throws IOException {
+    if (spillFile == null) {
+      var path = Files.createTempFile("oversized-values", ".bin");
+      spillFile = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+          StandardOpenOption.DELETE_ON_CLOSE);
+    }
+    var bytes = ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    long offset = size;
+    int length = bytes.remaining();
+    while (bytes.hasRemaining()) {
+      size += spillFile.write(bytes, size);
+    }
+    return PLACEHOLDER_PREFIX + offset + ":" + length;
+  }
+
+  @PreDestroy
+  public synchronized void close() throws IOException {
+    if (spillFile != null) {
+      mapping = null;
+      spillFile.close();
+      spillFile = null;
+      size = 0;
+    }
+  }
+}
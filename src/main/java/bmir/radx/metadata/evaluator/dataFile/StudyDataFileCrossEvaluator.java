@@ -2,13 +2,14 @@ package bmir.radx.metadata.evaluator.dataFile;
 
 import bmir.radx.metadata.evaluator.IssueLevel;
 import bmir.radx.metadata.evaluator.SpreadsheetHeaders;
-import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
 import bmir.radx.metadata.evaluator.thirdParty.rePORTER.RePORTERService;
 import bmir.radx.metadata.evaluator.util.InstanceArtifactPath;
 import bmir.radx.metadata.evaluator.util.InstanceArtifactValueGetter;
+import bmir.radx.metadata.evaluator.util.ReferenceDataIndex;
 import org.jfree.data.json.impl.JSONObject;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -37,51 +38,77 @@ public class StudyDataFileCrossEvaluator {
   private static final String PHS_IDENTIFIER = "PHS Identifier";
   private static final String DATA_FILE_FUNDING_SOURCES = "Data File Funding Sources";
   private static final String AWARD_LOCAL_IDENTIFIER = "Award Local Identifier";
-  private final SpreadsheetReader spreadsheetReader;
+  private final ReferenceDataIndex referenceDataIndex;
+  private final SpreadsheetSession spreadsheetSession;
   private final RePORTERService rePORTERService;
-  private Map<StudyMetadataRow, Integer> studySampleSizeMap = new HashMap<>();
-
-  public StudyDataFileCrossEvaluator(SpreadsheetReader spreadsheetReader, RePORTERService rePORTERService) {
-    this.spreadsheetReader = spreadsheetReader;
+  private final OversizedValueStore oversizedValueStore;
+
+  public StudyDataFileCrossEvaluator(ReferenceDataIndex referenceDataIndex,
+                                     SpreadsheetSession spreadsheetSession,
+                                     RePORTERService rePORTERService,
+                                     OversizedValueStore oversizedValueStore) {
+    this.referenceDataIndex = referenceDataIndex;
+    this.spreadsheetSession = spreadsheetSession;
     this.rePORTERService = rePORTERService;
+    this.oversizedValueStore = oversizedValueStore;
   }
 
   public void evaluate(Path studyPath,
                        Set<String> inaccurateStudies,
                        Map<Path, TemplateInstanceArtifact> dataFileRecords,
                        ValidationSummary<JsonValidationResult> validationSummary){
-    var studyRecords = spreadsheetReader.getStudyMetadataMapping(studyPath);
+    DataFileStage.run(start(studyPath, inaccurateStudies, validationSummary), dataFileRecords);
+  }
+
+  public FieldProjection getFieldProjection(){
+    return FieldProjection.of(
+        InstanceArtifactPath.STUDY_PHS_PATH.getPath(),
+        InstanceArtifactPath.STUDY_NAME_PATH.getPath(),
+        InstanceArtifactPath.AWARD_LOCAL_IDENTIFIER_PATH.getPath(),
+        InstanceArtifactPath.DATA_CHAR_SUMMARY_PATH.getPath());
+  }
+
+  public DataFileStage start(Path studyPath,
+                             Set<String> inaccurateStudies,
+                             ValidationSummary<JsonValidationResult> validationSummary){
+    var studyRecords = spreadsheetSession.getStudyMetadataMapping(studyPath);
 
-    Map<String, String> dataFile2Study = spreadsheetReader.getDataFile2StudyMapping();
+    Map<String, String> dataFile2Study = referenceDataIndex.getDataFile2StudyMapping();
+    Map<StudyMetadataRow, Integer> studySampleSizeMap = new HashMap<>();
 
-    for(var dataFileMetadata : dataFileRecords.entrySet()){
-      var dataFilePath = dataFileMetadata.getKey();
-      var dataFileName = dataFilePath.getFileName().toString();
-      var dataFileArtifact = dataFileMetadata.getValue();
+    return new DataFileStage() {
+      @Override
+      public void accept(Path dataFilePath, TemplateInstanceArtifact dataFileArtifact) {
+        var dataFileName = dataFilePath.getFileName().toString();
 
-      if(dataFile2Study.containsKey(dataFileName)){
-        var studyPhs = dataFile2Study.get(dataFileName);
+        if(dataFile2Study.containsKey(dataFileName)){
+          var studyPhs = dataFile2Study.get(dataFileName);
+
+          if(studyRecords.containsKey(studyPhs)){
+            var studyArtifact = studyRecords.get(studyPhs);
+            evaluateSinglePair(dataFileName, dataFileArtifact, studyArtifact, inaccurateStudies, studySampleSizeMap, validationSummary);
+          } else{
+            System.err.println(studyPhs + " is not exist in study metadata");
+          }
 
-        if(studyRecords.containsKey(studyPhs)){
-          var studyArtifact = studyRecords.get(studyPhs);
-          evaluateSinglePair(dataFileName, dataFileArtifact, studyArtifact, inaccurateStudies, validationSummary);
         } else{
-          System.err.println(studyPhs + " is not exist in study metadata");
+          System.err.println(dataFileName + " is not exist in bundles mappings");
         }
-
-      } else{
-        System.err.println(dataFileName + " is not exist in bundles mappings");
       }
-    }
 
-    // evaluate sample size
-    compareSampleSize(validationSummary);
+      @Override
+      public void complete() {
+        // evaluate sample size
+        compareSampleSize(studySampleSizeMap, validationSummary);
+      }
+    };
   }
 
   private void evaluateSinglePair(String dataFileName,
                                   TemplateInstanceArtifact dataFileArtifact,
                                   StudyMetadataRow studyArtifact,
                                   Set<String> inaccurateStudies,
+                                  Map<StudyMetadataRow, Integer> studySampleSizeMap,
                                   ValidationSummary<JsonValidationResult> validationSummary) {
     var studyPhs = studyArtifact.studyPHS().trim();
     var studyName = studyArtifact.studyTitle();
@@ -123,8 +150,8 @@ public class StudyDataFileCrossEvaluator {
 //      updateResult4SampleSize(row, studyPhs, dataFileName, studySize, dataSummarySize, inaccurateStudies, validationSummary);
 //    }
 
-    // Update sample size map
-    var dataCharSummary = InstanceArtifactValueGetter.getDataCharSummary(dataFileArtifact);
+    // Update sample size map, the HTML table is only materialized here when it was spilled
+    var dataCharSummary = oversizedValueStore.resolve(InstanceArtifactValueGetter.getDataCharSummary(dataFileArtifact));
     int dataSummarySize = getSampleSizeFromHTML(dataCharSummary);
     studySampleSizeMap.merge(studyArtifact, dataSummarySize, Math::max);
   }
@@ -217,7 +244,7 @@ public class StudyDataFileCrossEvaluator {
     return maxN;
   }
 
-  private void compareSampleSize(ValidationSummary<JsonValidationResult> validationSummary){
+  private void compareSampleSize(Map<StudyMetadataRow, Integer> studySampleSizeMap, ValidationSummary<JsonValidationResult> validationSummary){
     for(var sampleSizeEntry: studySampleSizeMap.entrySet()){
       var studyMetadataRow = sampleSizeEntry.getKey();
       var sampleSizeFromStudy = studyMetadataRow.estimatedCohortSize();
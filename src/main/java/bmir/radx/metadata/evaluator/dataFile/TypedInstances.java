@@ -0,0 +1,35 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.dataFile.generated.DataFileMetadata;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+
+import java.util.Optional;
+
+/***
+ * Typed records of the data file metadata instances, generated from the bundled data file template at build time.
+ * The record is bound once per instance and shared by every criterion. Records are cached by instance identity
+ * and dropped with the instance.
+ * Instances based on another template version have no record, callers read their fields by name instead.
+ */
+public class TypedInstances {
+  private static final Cache<TemplateInstanceArtifact, DataFileMetadata> RECORDS = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+
+  public static Optional<DataFileMetadata> get(TemplateInstanceArtifact instance) {
+    if (!isBundledVersion(instance)) {
+      return Optional.empty();
+    }
+    return Optional.of(RECORDS.get(instance, DataFileMetadata::bind));
+  }
+
+  /***
+   * Instances without schema:isBasedOn are evaluated against the bundled template, as in TemplateGetter
+   */
+  public static boolean isBundledVersion(TemplateInstanceArtifact instance) {
+    var isBasedOn = instance.isBasedOn();
+    return isBasedOn == null || DataFileMetadata.TEMPLATE_ID.equals(isBasedOn.toString());
+  }
+}
@@ -0,0 +1,83 @@
+package bmir.radx.metadata.evaluator.result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/***
+ * A validation summary that many threads can add results to at once. Every thread adds to its own buffer, so adding
+ * a result never waits for another thread, and the buffers are only joined when the results are read.
+ * The results of one thread keep the order they were added in, the buffers are joined in the order the threads
+ * added their first result.
+ */
+public class ConcurrentValidationSummary<T extends ValidationResult> extends ValidationSummary<T> {
+  private final Queue<List<T>> buffers = new ConcurrentLinkedQueue<>();
+  private final ThreadLocal<List<T>> buffer = ThreadLocal.withInitial(() -> {
+    List<T> threadBuffer = new ArrayList<>();
+    buffers.add(threadBuffer);
+    return threadBuffer;
+  });
+
+  public ConcurrentValidationSummary(Set<String> invalidMetadata) {
+    super(List.of(), newInvalidMetadata(invalidMetadata));
+  }
+
+  private static Set<String> newInvalidMetadata(Set<String> invalidMetadata) {
+    Set<String> concurrentInvalidMetadata = ConcurrentHashMap.newKeySet();
+    concurrentInvalidMetadata.addAll(invalidMetadata);
+    return concurrentInvalidMetadata;
+  }
+
+  /***
+   * This method returns the results added by all threads so far. Results must be added through this summary,
+   * not to the returned list, and threads still adding results may or may not be included.
+   */
+  @Override
+  public List<T> getValidationResults() {
+    List<T> validationResults = new ArrayList<>();
+    for (var threadBuffer : buffers) {
+      validationResults.addAll(threadBuffer);
+    }
+    return Collections.unmodifiableList(validationResults);
+  }
+
+  /***
+   * This method replaces the results of all threads, it must not be called while other threads add results
+   */
+  @Override
+  public void setValidationResults(List<T> validationResults) {
+    buffers.forEach(List::clear);
+    buffer.get().addAll(validationResults);
+  }
+
+  @Override
+  public void setInvalidMetadata(Set<String> invalidMetadata) {
+    super.setInvalidMetadata(newInvalidMetadata(invalidMetadata));
+  }
+
+  @Override
+  public void updateValidationResults(List<T> newValidationResults) {
+    buffer.get().addAll(newValidationResults);
+  }
+
+  @Override
+  public void updateValidationResult(T newValidationResult) {
+    buffer.get().add(newValidationResult);
+  }
+
+  /***
+   * Only the results added by the calling thread are counted, so other threads adding results at the same time
+   * do not change the count
+   */
+  @Override
+  public int countValidationResults(Runnable check) {
+    var threadBuffer = buffer.get();
+    int before = threadBuffer.size();
+    check.run();
+    return threadBuffer.size() - before;
+  }
+}
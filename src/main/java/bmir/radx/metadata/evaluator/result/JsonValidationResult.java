@@ -2,6 +2,7 @@ package bmir.radx.metadata.evaluator.result;
 
 import bmir.radx.metadata.evaluator.IssueLevel;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
+import bmir.radx.metadata.evaluator.util.SymbolTable;
 
 public record JsonValidationResult(String studyPhs,
                                    String fileName,
@@ -12,6 +13,16 @@ public record JsonValidationResult(String studyPhs,
                                    String uuid,
                                    IssueLevel issueLevel,
                                    String value) implements ValidationResult {
+  // Results of the same check repeat the same PHS, pointer and messages, so they share one copy of each
+  public JsonValidationResult {
+    studyPhs = SymbolTable.intern(studyPhs);
+    fileName = SymbolTable.intern(fileName);
+    pointer = SymbolTable.intern(pointer);
+    errorMessage = SymbolTable.intern(errorMessage);
+    suggestion = SymbolTable.intern(suggestion);
+    value = SymbolTable.intern(value);
+  }
+
   // Constructor with default `uuid` and `issueLevel`
   public JsonValidationResult(String studyPhs,
                               String fileName,
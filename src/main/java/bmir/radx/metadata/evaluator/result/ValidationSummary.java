@@ -43,4 +43,13 @@ public class ValidationSummary<T extends ValidationResult> {
   public void updateValidationResult(T newValidationResult){
     this.validationResults.add(newValidationResult);
   }
+
+  /***
+   * This method runs the check and returns the number of validation results it added
+   */
+  public int countValidationResults(Runnable check){
+    int before = validationResults.size();
+    check.run();
+    return validationResults.size() - before;
+  }
 }
@@ -2,15 +2,16 @@ package bmir.radx.metadata.evaluator.sharedComponents;
 
 import bmir.radx.metadata.evaluator.IssueLevel;
 import bmir.radx.metadata.evaluator.dataFile.FieldsCollector;
-import bmir.radx.metadata.evaluator.dataFile.RecommendedFields;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
+import bmir.radx.metadata.evaluator.study.StudyMetadataRowAccessor;
+import bmir.radx.metadata.evaluator.util.CompiledTemplate;
 import bmir.radx.metadata.evaluator.util.FieldCategory;
+import bmir.radx.metadata.evaluator.util.InstanceView;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
-import edu.stanford.bmir.radx.metadata.validator.lib.AttributeValueFieldValues;
 import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
 import jdk.jshell.SourceCodeAnalysis;
 import org.metadatacenter.artifacts.model.core.ElementSchemaArtifact;
 import org.metadatacenter.artifacts.model.core.TemplateSchemaArtifact;
@@ -21,8 +22,6 @@ import org.springframework.stereotype.Component;
 import java.util.*;
 
 import static bmir.radx.metadata.evaluator.sharedComponents.DistributionManager.updateDistribution;
-import static bmir.radx.metadata.evaluator.study.FieldNameStandardizer.getStandardizedMap;
-import static bmir.radx.metadata.evaluator.study.FieldNameStandardizer.standardizeFieldName;
 import static bmir.radx.metadata.evaluator.util.FieldCategory.*;
 import static bmir.radx.metadata.evaluator.util.IssueTypeMapping.getIssueType;
 
@@ -43,7 +42,7 @@ public class CompletionRateChecker {
     return completenessDistribution;
   }
 
-  public <T> CompletionResult getSpreadsheetRowCompleteness(T instance, TemplateSchemaArtifact template) {
+  public CompletionResult getSpreadsheetRowCompleteness(StudyMetadataRow instance, TemplateSchemaArtifact template) {
     Map<FieldCategory, Integer> filled = new HashMap<>();
     Map<FieldCategory, Integer> totals = new HashMap<>();
 
@@ -52,26 +51,18 @@ public class CompletionRateChecker {
       totals.put(requirement, 0);
     }
 
-    var fields = instance.getClass().getDeclaredFields();
-    for (var field : fields) {
-      field.setAccessible(true);
-
-      String fieldName = field.getName();
-      var requirement = getRequirement(fieldName, template);
+    for (var field : StudyMetadataRowAccessor.all()) {
+      var requirement = field.category();
       if (requirement == null) {
         continue;
       }
       totals.put(requirement, totals.get(requirement) + 1);
       totals.put(OVERALL, totals.get(OVERALL) + 1);
 
-      try {
-        var value = field.get(instance);
-        if (value != null && !value.equals("")) {
-          filled.put(requirement, filled.get(requirement) + 1);
-          filled.put(OVERALL, filled.get(OVERALL) + 1);
-        }
-      } catch (IllegalAccessException e) {
-        e.printStackTrace();
+      var value = field.get(instance);
+      if (value != null && !value.equals("")) {
+        filled.put(requirement, filled.get(requirement) + 1);
+        filled.put(OVERALL, filled.get(OVERALL) + 1);
       }
     }
 
@@ -165,110 +156,21 @@ public class CompletionRateChecker {
   }
 
 
-  public CompletionResult getSingleDataFileCompleteness(TemplateSchemaArtifact templateSchemaArtifact, TemplateInstanceValuesReporter templateInstanceValuesReporter){
-    var templateReporter = new TemplateReporter(templateSchemaArtifact);
-    var values = templateInstanceValuesReporter.getValues();
-    var attributeValueFields = templateInstanceValuesReporter.getAttributeValueFields();
-    var allFields = fieldsCollector.getAllFields(templateSchemaArtifact);
-
-    HashSet<String> filledRequiredFields = new HashSet<>();
-    HashSet<String> filledRecommendedFields = new HashSet<>();
-    HashSet<String> filledOptionalFields = new HashSet<>();
-    HashSet<String> filledElements = new HashSet<>();
-    HashSet<String> checkedFields = new HashSet<>();
-
-    int requiredFieldCount = 0;
-    int recommendedFieldCount = 0;
-    int optionalFieldCount = 0;
-
-    for(var field:allFields){
-      var fieldConstraint = templateReporter.getValueConstraints(field);
-      if (isRequiredField(fieldConstraint)) {
-        requiredFieldCount++;
-      } else if (isRecommendedField(field)) {
-        recommendedFieldCount++;
-      } else{
-        optionalFieldCount++;
-      }
+  public CompletionResult getSingleDataFileCompleteness(CompiledTemplate template, InstanceView templateInstanceValuesReporter){
+    var counter = new FieldCompletenessCounter(template.fields());
+    for (Map.Entry<String, FieldValues> fieldEntry : templateInstanceValuesReporter.getValues().entrySet()) {
+      counter.addField(fieldEntry.getKey(), fieldsCollector.isEmptyField(fieldEntry.getValue()));
     }
-    //update optional filed count with attribute value fields
-    optionalFieldCount = optionalFieldCount + attributeValueFields.size();
-    int totalFieldCount = requiredFieldCount + recommendedFieldCount + optionalFieldCount;
-
-    int elementCount = templateSchemaArtifact.getElementKeys().size();
-
-    for (Map.Entry<String, FieldValues> fieldEntry : values.entrySet()) {
-      var path = fieldEntry.getKey();
-      var normalizedPath = path.replaceAll("\\[\\d+\\]", "");
-      var value = fieldEntry.getValue();
-      var fieldConstraint = templateReporter.getValueConstraints(normalizedPath);
-      if(!checkedFields.contains(normalizedPath) && !fieldsCollector.isEmptyField(value)){
-        if (isRequiredField(fieldConstraint)) {
-          filledRequiredFields.add(normalizedPath);
-        } else if (isRecommendedField(normalizedPath) ) {
-          filledRecommendedFields.add(normalizedPath);
-        } else {
-          filledOptionalFields.add(normalizedPath);
-        }
-        checkedFields.add(normalizedPath);
-        filledElements.add(getParentElement(normalizedPath));
-      }
+    for (var avField : templateInstanceValuesReporter.getAttributeValueFields()) {
+      counter.addAttributeValueField(avField.specificationPath(), fieldsCollector.isEmptyField(avField.fieldValues()));
     }
-
-    int filledRequiredFieldCount = filledRequiredFields.size();
-    int filledRecommendedFieldCount = filledRecommendedFields.size();
-    int filledAvFieldsCount = filledAvFields(attributeValueFields);
-    int filledOptionalFieldCount = filledOptionalFields.size() + filledAvFieldsCount;
-    int filledElementCount = filledElements.size();
-    int totalFilledFieldCount = filledRequiredFieldCount + filledRecommendedFieldCount + filledOptionalFieldCount;
-
-    Map<FieldCategory, Double> completionRates = new HashMap<>();
-    var requiredCompleteness = (double)filledRequiredFieldCount/requiredFieldCount;
-    var recommendedCompleteness = (double)filledRecommendedFieldCount/recommendedFieldCount;
-    var optionalCompleteness = (double) filledOptionalFieldCount/ optionalFieldCount;
-    var overallCompleteness = (double) totalFilledFieldCount / totalFieldCount;
-    completionRates.put(REQUIRED, requiredCompleteness);
-    completionRates.put(RECOMMENDED, recommendedCompleteness);
-    completionRates.put(OPTIONAL, optionalCompleteness);
-    completionRates.put(OVERALL, overallCompleteness);
-
-    return new CompletionResult(
-        completionRates,
-        requiredFieldCount,
-        recommendedFieldCount,
-        optionalFieldCount,
-        totalFieldCount,
-        filledRequiredFieldCount,
-        filledRecommendedFieldCount,
-        filledOptionalFieldCount,
-        totalFilledFieldCount
-    );
-  }
-
-  private boolean isRequiredField(Optional<ValueConstraints> valueConstraints){
-    return valueConstraints.map(ValueConstraints::requiredValue).orElse(false);
+    return counter.getResult();
   }
 
   private boolean isRecommendedField(Optional<ValueConstraints> valueConstraints){
     return valueConstraints.map(ValueConstraints::recommendedValue).orElse(false);
   }
 
-  //RADx Metadata Specification 1.0 doesn't implement recommended option
-  private boolean isRecommendedField(String fieldPath){
-    return RecommendedFields.isRecommendedField(fieldPath);
-  }
-
-  private int filledAvFields(List<AttributeValueFieldValues> avFields){
-    var filledAvFields = new HashSet<String>();
-    for(var avField: avFields){
-      var fieldValues = avField.fieldValues();
-      if(!fieldsCollector.isEmptyField(fieldValues)){
-        filledAvFields.add(avField.specificationPath());
-      }
-    }
-    return filledAvFields.size();
-  }
-
   public Collection<String> getEmptyElements(Map<String, Integer> combinedFillingReport, TemplateSchemaArtifact templateSchemaArtifact){
     Set<String> emptyElements = new HashSet<>();
     var childElements = templateSchemaArtifact.getElementKeys();
@@ -302,38 +204,8 @@ public class CompletionRateChecker {
     return true;
   }
 
-  private String getParentElement(String path){
-    return path.split("/")[1];
-  }
-
   private Collection<String> getAllElements(TemplateSchemaArtifact templateSchemaArtifact){
     var childElements = templateSchemaArtifact.getElementKeys();
     return new HashSet<>(childElements);
   }
-
-  private FieldCategory getRequirement(String fieldName, TemplateSchemaArtifact templateSchemaArtifact){
-//    var templateReporter = new TemplateReporter(templateSchemaArtifact);
-//    var standardizedMap = getStandardizedMap(templateSchemaArtifact);
-//    var fieldPath = "/" + standardizedMap.get(standardizeFieldName(fieldName));
-//    var fieldArtifact = templateReporter.getFieldSchema(fieldPath);
-//    if(fieldArtifact.isEmpty()){
-//      return null;
-//    }
-//    if(fieldArtifact.get().requiredValue()){
-//      return REQUIRED;
-//    } else if (fieldArtifact.get().valueConstraints().get().recommendedValue()) {
-//      return FieldCategory.RECOMMENDED;
-//    } else{
-//      return FieldCategory.OPTIONAL;
-//    }
-
-    var requiredFields = List.of("studyProgram", "studyPHS", "studyTitle", "studyDesign", "dataTypes", "studyDomain", "nihInstituteOrCenter", "consentDataUseLimitations", "studyStatus", "hasDataFiles");
-    if(fieldName.equals("rowNumber")){
-      return null;
-    } else if (requiredFields.contains(fieldName)) {
-      return REQUIRED;
-    } else{
-      return RECOMMENDED;
-    }
-  }
 }
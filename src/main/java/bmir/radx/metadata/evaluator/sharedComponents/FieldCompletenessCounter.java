@@ -0,0 +1,88 @@
+package bmir.radx.metadata.evaluator.sharedComponents;
+
+import bmir.radx.metadata.evaluator.util.FieldCategory;
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static bmir.radx.metadata.evaluator.util.FieldCategory.*;
+
+/***
+ * Counts the filled fields of one data file metadata instance, one field value at a time, so the completeness can
+ * be computed during a walk over the instance values that other checks share.
+ * Fields of the template are tracked by id, any other path is counted as an optional field.
+ */
+public class FieldCompletenessCounter {
+  private final TemplateFieldIndex fields;
+  private final BitSet checkedFields;
+  private final Set<String> filledOtherFields = new HashSet<>();
+  private final Set<String> filledAvFields = new HashSet<>();
+  private int attributeValueFieldCount = 0;
+  private int filledRequiredFieldCount = 0;
+  private int filledRecommendedFieldCount = 0;
+  private int filledOptionalTemplateFieldCount = 0;
+
+  public FieldCompletenessCounter(TemplateFieldIndex fields) {
+    this.fields = fields;
+    this.checkedFields = new BitSet(fields.size());
+  }
+
+  public void addField(String path, boolean empty) {
+    if (empty) {
+      return;
+    }
+    int id = fields.getIdIgnoringIndices(path);
+    if (id < 0) {
+      filledOtherFields.add(TemplateFieldIndex.removeIndices(path));
+    } else if (!checkedFields.get(id)) {
+      if (fields.isRequired(id)) {
+        filledRequiredFieldCount++;
+      } else if (fields.isRecommended(id)) {
+        filledRecommendedFieldCount++;
+      } else {
+        filledOptionalTemplateFieldCount++;
+      }
+      checkedFields.set(id);
+    }
+  }
+
+  public void addAttributeValueField(String specificationPath, boolean empty) {
+    attributeValueFieldCount++;
+    if (!empty) {
+      filledAvFields.add(specificationPath);
+    }
+  }
+
+  public CompletionResult getResult() {
+    int requiredFieldCount = fields.getRequiredFieldCount();
+    int recommendedFieldCount = fields.getRecommendedFieldCount();
+    //update optional filed count with attribute value fields
+    int optionalFieldCount = fields.getOptionalFieldCount() + attributeValueFieldCount;
+    int totalFieldCount = requiredFieldCount + recommendedFieldCount + optionalFieldCount;
+
+    int filledOptionalFieldCount = filledOptionalTemplateFieldCount + filledOtherFields.size() + filledAvFields.size();
+    int totalFilledFieldCount = filledRequiredFieldCount + filledRecommendedFieldCount + filledOptionalFieldCount;
+
+    Map<FieldCategory, Double> completionRates = new HashMap<>();
+    completionRates.put(REQUIRED, (double) filledRequiredFieldCount / requiredFieldCount);
+    completionRates.put(RECOMMENDED, (double) filledRecommendedFieldCount / recommendedFieldCount);
+    completionRates.put(OPTIONAL, (double) filledOptionalFieldCount / optionalFieldCount);
+    completionRates.put(OVERALL, (double) totalFilledFieldCount / totalFieldCount);
+
+    return new CompletionResult(
+        completionRates,
+        requiredFieldCount,
+        recommendedFieldCount,
+        optionalFieldCount,
+        totalFieldCount,
+        filledRequiredFieldCount,
+        filledRecommendedFieldCount,
+        filledOptionalFieldCount,
+        totalFilledFieldCount
+    );
+  }
+}
@@ -4,11 +4,15 @@ import bmir.radx.metadata.evaluator.dataFile.FieldsCollector;
 import bmir.radx.metadata.evaluator.result.JsonValidationResult;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
+import bmir.radx.metadata.evaluator.study.StudyMetadataRowAccessor;
+import bmir.radx.metadata.evaluator.util.TemplateFieldIndex;
 import bmir.radx.metadata.evaluator.util.URLCount;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import edu.stanford.bmir.radx.metadata.validator.lib.AttributeValueFieldValues;
 import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
 import org.metadatacenter.artifacts.model.core.TemplateSchemaArtifact;
 import org.metadatacenter.artifacts.model.core.fields.constraints.ValueConstraints;
 import org.metadatacenter.artifacts.model.visitors.TemplateReporter;
@@ -16,7 +20,9 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.net.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
 import static bmir.radx.metadata.evaluator.study.FieldNameStandardizer.getStandardizedMap;
@@ -30,6 +36,7 @@ public class LinkChecker {
   private static final int MAX_RETRIES = 10;          // Max retries for 429
   private static final int BASE_BACKOFF = 500;        // Initial backoff time
   private final Cache<String, Boolean> urlStatusCache; // URL cache
+  private final LoadingCache<TemplateSchemaArtifact, List<StudyMetadataRowAccessor>> studyLinkFields; // Link fields per study template
   private final FieldsCollector fieldsCollector;
   private final String errorMessage = "Invalid URL";
 
@@ -39,74 +46,85 @@ public class LinkChecker {
         .maximumSize(1000)
         .expireAfterWrite(30, TimeUnit.MINUTES)
         .build();
+    this.studyLinkFields = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build(CacheLoader.from(this::getStudyLinkFields));
   }
 
-  public URLCount checkJson(String studyPHS,
-                            String fileName,
-                            TemplateReporter templateReporter,
-                            TemplateInstanceValuesReporter valuesReporter,
-                            List<JsonValidationResult> validationResults){
-    var values = valuesReporter.getValues();
-    var avValues = valuesReporter.getAttributeValueFields();
-    URLCount urlCount = new URLCount(0, 0, 0);
-    for(var fieldEntry: values.entrySet()){
-      var path = fieldEntry.getKey();
-      var valueConstraints = templateReporter.getValueConstraints(path);
-      if(valueConstraints.isPresent() && meetCriteria(fieldEntry.getValue(), valueConstraints.get())){
-        urlCount.incrementTotalURL();
-        var uri = fieldEntry.getValue().jsonLdId();
-        if(uri.isPresent()){
-          var uriString = uri.get().toString();
-          updateUnresolvableUrlResult(studyPHS, uriString, fileName, path, urlCount, validationResults);
-        }
-      }
+  /***
+   * A filled link field of a data file metadata instance. The url is null when the field has no @id,
+   * such a link is counted but not resolved.
+   */
+  public record JsonLink(String path, String url) {
+  }
+
+  /***
+   * This method returns the link of a template field with a link constraint, if the field is filled
+   */
+  public Optional<JsonLink> getJsonLink(TemplateFieldIndex templateFields, String path, int id, FieldValues fieldValues, boolean empty){
+    if(!templateFields.isLink(id) || empty){
+      return Optional.empty();
     }
+    return Optional.of(new JsonLink(path, fieldValues.jsonLdId().map(URI::toString).orElse(null)));
+  }
 
-    //note that radx-rad has publication-url in Attribute-Value fields
-    for(var avArtifact: avValues){
-      var value = avArtifact.fieldValues().jsonLdValue();
-      var path = avArtifact.specificationPath();
-      if(value.isPresent() && isValidURL(value.get())){
-        urlCount.incrementTotalURL();
-        updateUnresolvableUrlResult(studyPHS, value.get(), fileName, path, urlCount, validationResults);
-      }
+  /***
+   * This method returns the link of an attribute value field whose value is a URL.
+   * Note that radx-rad has publication-url in Attribute-Value fields
+   */
+  public Optional<JsonLink> getJsonLink(AttributeValueFieldValues attributeValueField){
+    var value = attributeValueField.fieldValues().jsonLdValue();
+    if(value.isPresent() && isValidURL(value.get())){
+      return Optional.of(new JsonLink(attributeValueField.specificationPath(), value.get()));
     }
+    return Optional.empty();
+  }
 
+  public URLCount checkJsonLinks(String studyPHS,
+                                 String fileName,
+                                 List<JsonLink> links,
+                                 List<JsonValidationResult> validationResults){
+    URLCount urlCount = new URLCount(0, 0, 0);
+    for(var link: links){
+      urlCount.incrementTotalURL();
+      if(link.url() != null){
+        updateUnresolvableUrlResult(studyPHS, link.url(), fileName, link.path(), urlCount, validationResults);
+      }
+    }
     return urlCount;
   }
 
   public URLCount checkSpreadsheet(StudyMetadataRow instance,
                                    TemplateSchemaArtifact templateSchemaArtifact,
                                    List<SpreadsheetValidationResult> validationResults){
-    var fields = instance.getClass().getDeclaredFields();
     var urlCount = new URLCount(0,0,0);
     var rowNumber = instance.rowNumber();
     var phsNumber = instance.studyPHS();
-    for(var field: fields){
-      field.setAccessible(true);
-      String fieldName = field.getName();
-      try {
-        var value = field.get(instance);
-        var templateReporter = new TemplateReporter(templateSchemaArtifact);
-        var standardizedMap = getStandardizedMap(templateSchemaArtifact);
-        var fieldPath = "/" + standardizedMap.get(standardizeFieldName(fieldName));
-        var valueConstraints = templateReporter.getValueConstraints(fieldPath);
-        if(value!= null &&
-            !value.equals("") &&
-            valueConstraints.isPresent() &&
-            meetCriteria(valueConstraints.get())){
-          checkUrlResolvable(value.toString(), rowNumber, phsNumber, fieldName, urlCount, validationResults);
-        }
-      } catch (IllegalAccessException e) {
-        throw new RuntimeException("Error get value of " + fieldName);
+    for(var field: studyLinkFields.getUnchecked(templateSchemaArtifact)){
+      var value = field.get(instance);
+      if(value!= null && !value.equals("")){
+        checkUrlResolvable(value.toString(), rowNumber, phsNumber, field.name(), urlCount, validationResults);
       }
     }
     return urlCount;
   }
 
-  private boolean meetCriteria(FieldValues fieldValues, ValueConstraints valueConstraints){
-//    return !fieldsCollector.isEmptyField(fieldValues) && (valueConstraints.isControlledTermValueConstraint() || valueConstraints.isLinkValueConstraint());
-    return !fieldsCollector.isEmptyField(fieldValues) && valueConstraints.isLinkValueConstraint();
+  /***
+   * This method return the study metadata fields whose template field has a link constraint.
+   * The study template is resolved once per template, so checkSpreadsheet only reads the link fields of each row.
+   */
+  private List<StudyMetadataRowAccessor> getStudyLinkFields(TemplateSchemaArtifact templateSchemaArtifact){
+    var templateReporter = new TemplateReporter(templateSchemaArtifact);
+    var standardizedMap = getStandardizedMap(templateSchemaArtifact);
+    List<StudyMetadataRowAccessor> linkFields = new ArrayList<>();
+    for(var field: StudyMetadataRowAccessor.all()){
+      var fieldPath = "/" + standardizedMap.get(standardizeFieldName(field.name()));
+      var valueConstraints = templateReporter.getValueConstraints(fieldPath);
+      if(valueConstraints.isPresent() && meetCriteria(valueConstraints.get())){
+        linkFields.add(field);
+      }
+    }
+    return List.copyOf(linkFields);
   }
 
   private boolean meetCriteria(ValueConstraints valueConstraints){
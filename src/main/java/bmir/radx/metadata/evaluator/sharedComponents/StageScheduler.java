@@ -0,0 +1,185 @@
+package bmir.radx.metadata.evaluator.sharedComponents;
+
+import bmir.radx.metadata.evaluator.result.ConcurrentValidationSummary;
+import bmir.radx.metadata.evaluator.result.EvaluationResult;
+import bmir.radx.metadata.evaluator.result.ValidationResult;
+import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/***
+ * Runs the evaluation stages of a report concurrently. A stage starts as soon as the stages it depends on are done,
+ * on the I/O pool when it mostly waits for remote services and on the CPU pool otherwise.
+ * Every stage writes to its own result list and thread safe validation summary. The outputs are merged in the order
+ * the stages were added, so the report is the same as when the stages run one after another. A stage sees the
+ * invalid metadata of the stages it depends on, as it would in a sequential run.
+ */
+public class StageScheduler<T extends ValidationResult> {
+  public enum Pool {
+    CPU,
+    IO
+  }
+
+  @FunctionalInterface
+  public interface Stage<T extends ValidationResult> {
+    void run(Consumer<EvaluationResult> consumer, ValidationSummary<T> validationSummary);
+  }
+
+  private record ScheduledStage<T extends ValidationResult>(String name, Pool pool, List<String> dependencies, Stage<T> stage) {
+  }
+
+  private record StageOutput<T extends ValidationResult>(List<EvaluationResult> results,
+                                                         ValidationSummary<T> validationSummary,
+                                                         long startNanos,
+                                                         long endNanos) {
+    long durationMillis() {
+      return (endNanos - startNanos) / 1_000_000;
+    }
+  }
+
+  private final Logger logger;
+  private final int parallelism;
+  private final Map<String, ScheduledStage<T>> stages = new LinkedHashMap<>();
+
+  /***
+   * @param parallelism the number of CPU bound stages run at once, 0 for the number of processors and 1 to run
+   *                    every stage one after another on the calling thread
+   */
+  public StageScheduler(Logger logger, int parallelism) {
+    this.logger = logger;
+    this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+  }
+
+  /***
+   * This method adds a stage after the stages added so far. Dependencies must be added first, names of stages
+   * that were not added, e.g. because their criterion was not selected, are ignored.
+   */
+  public StageScheduler<T> add(String name, Pool pool, Stage<T> stage, String... dependencies) {
+    var added = Arrays.stream(dependencies).filter(stages::containsKey).toList();
+    if (stages.putIfAbsent(name, new ScheduledStage<>(name, pool, added, stage)) != null) {
+      throw new IllegalArgumentException("Stage " + name + " is already added");
+    }
+    return this;
+  }
+
+  public void run(Consumer<EvaluationResult> consumer, ValidationSummary<T> validationSummary) {
+    long start = System.nanoTime();
+    Map<String, StageOutput<T>> outputs = parallelism == 1
+        ? runSequentially(validationSummary)
+        : runConcurrently(validationSummary);
+
+    for (var output : outputs.values()) {
+      output.results().forEach(consumer);
+      validationSummary.updateValidationResults(output.validationSummary().getValidationResults());
+      validationSummary.getInvalidMetadata().addAll(output.validationSummary().getInvalidMetadata());
+    }
+    logTimings(outputs, System.nanoTime() - start);
+  }
+
+  private Map<String, StageOutput<T>> runSequentially(ValidationSummary<T> validationSummary) {
+    Map<String, StageOutput<T>> outputs = new LinkedHashMap<>();
+    for (var stage : stages.values()) {
+      outputs.put(stage.name(), runStage(stage, validationSummary, outputs));
+    }
+    return outputs;
+  }
+
+  private Map<String, StageOutput<T>> runConcurrently(ValidationSummary<T> validationSummary) {
+    ExecutorService cpuExecutor = Executors.newFixedThreadPool(parallelism);
+    ExecutorService ioExecutor = Executors.newCachedThreadPool();
+    try {
+      Map<String, CompletableFuture<StageOutput<T>>> futures = new LinkedHashMap<>();
+      for (var stage : stages.values()) {
+        Map<String, CompletableFuture<StageOutput<T>>> dependencies = new HashMap<>();
+        for (var dependency : stage.dependencies()) {
+          dependencies.put(dependency, futures.get(dependency));
+        }
+        var executor = stage.pool() == Pool.IO ? ioExecutor : cpuExecutor;
+        var ready = CompletableFuture.allOf(dependencies.values().toArray(CompletableFuture[]::new));
+        futures.put(stage.name(), ready.thenApplyAsync(ignored -> {
+          Map<String, StageOutput<T>> dependencyOutputs = new HashMap<>();
+          dependencies.forEach((name, future) -> dependencyOutputs.put(name, future.join()));
+          return runStage(stage, validationSummary, dependencyOutputs);
+        }, executor));
+      }
+
+      Map<String, StageOutput<T>> outputs = new LinkedHashMap<>();
+      for (var future : futures.entrySet()) {
+        outputs.put(future.getKey(), future.getValue().join());
+      }
+      return outputs;
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new RuntimeException("Error run evaluation stage: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      cpuExecutor.shutdownNow();
+      ioExecutor.shutdownNow();
+    }
+  }
+
+  private StageOutput<T> runStage(ScheduledStage<T> stage,
+                                  ValidationSummary<T> validationSummary,
+                                  Map<String, StageOutput<T>> dependencyOutputs) {
+    var invalidMetadata = new HashSet<>(validationSummary.getInvalidMetadata());
+    for (var dependency : stage.dependencies()) {
+      invalidMetadata.addAll(dependencyOutputs.get(dependency).validationSummary().getInvalidMetadata());
+    }
+    // Thread safe, so a stage may evaluate its instances in parallel
+    var stageSummary = new ConcurrentValidationSummary<T>(invalidMetadata);
+    var results = new ArrayList<EvaluationResult>();
+    long start = System.nanoTime();
+    stage.stage().run(results::add, stageSummary);
+    return new StageOutput<>(results, stageSummary, start, System.nanoTime());
+  }
+
+  /***
+   * The critical path is the chain of dependent stages with the longest total run time, the report can not be
+   * produced faster than this chain however many threads are used
+   */
+  private void logTimings(Map<String, StageOutput<T>> outputs, long wallNanos) {
+    Map<String, Long> pathMillis = new HashMap<>();
+    Map<String, String> pathPredecessors = new HashMap<>();
+    for (var stage : stages.values()) {
+      long longestDependency = 0;
+      for (var dependency : stage.dependencies()) {
+        if (pathMillis.get(dependency) >= longestDependency) {
+          longestDependency = pathMillis.get(dependency);
+          pathPredecessors.put(stage.name(), dependency);
+        }
+      }
+      var output = outputs.get(stage.name());
+      pathMillis.put(stage.name(), longestDependency + output.durationMillis());
+      logger.info("Stage " + stage.name() + " took " + output.durationMillis() + " ms on the " + stage.pool() + " pool");
+    }
+
+    String last = null;
+    for (var stage : stages.keySet()) {
+      if (last == null || pathMillis.get(stage) > pathMillis.get(last)) {
+        last = stage;
+      }
+    }
+    if (last == null) {
+      return;
+    }
+    List<String> criticalPath = new ArrayList<>();
+    for (var stage = last; stage != null; stage = pathPredecessors.get(stage)) {
+      criticalPath.add(0, stage);
+    }
+    logger.info("Critical path " + String.join(" -> ", criticalPath) + " took " + pathMillis.get(last)
+        + " ms, all stages took " + wallNanos / 1_000_000 + " ms");
+  }
+}
@@ -25,7 +25,7 @@ public class StudyAccessibilityEvaluator {
 
   public void evaluate(List<StudyMetadataRow> rows, Consumer<EvaluationResult> consumer, ValidationSummary<SpreadsheetValidationResult> validationSummary){
     var templateSchemaArtifact = templateGetter.getStudyTemplate();
-    var validationResults = validationSummary.getValidationResults();
+    List<SpreadsheetValidationResult> validationResults = new ArrayList<>();
 
     Map<Integer, Integer> distributionMap = new HashMap<>();
     Set<String> inaccessibleRecords = new HashSet<>();
@@ -44,6 +44,7 @@ public class StudyAccessibilityEvaluator {
         inaccessibleRecords.add(row.studyPHS());
       }
     }
+    validationSummary.updateValidationResults(validationResults);
 
     updateAccessibilityResult(totalURL, totalResolvableURL, consumer, distributionMap, inaccessibleRecords);
   }
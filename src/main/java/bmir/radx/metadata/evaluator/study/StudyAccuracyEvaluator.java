@@ -34,8 +34,6 @@ public class StudyAccuracyEvaluator {
   public void evaluate(List<StudyMetadataRow> metadataRows,
                        Consumer<EvaluationResult> consumer,
                        ValidationSummary<SpreadsheetValidationResult> validationSummary){
-    var validationResults = validationSummary.getValidationResults();
-//    var incorrectCtLinks = clinicalTrialsChecker.checkInvalidClinicalTrialsLink(metadataRows, validationResults);
     var inAccurateStudies = new HashSet<String>();
 
     for(var row: metadataRows){
@@ -53,11 +51,11 @@ public class StudyAccuracyEvaluator {
   }
 
   private void evaluateSingleRecord(StudyMetadataRow row, ValidationSummary<SpreadsheetValidationResult> validationSummary, Set<String> inAccurateStudies){
-    var startErrors = validationSummary.getValidationResults().size();
-    checkCTLinks(row, validationSummary);
-    checkAgainstReporter(row, validationSummary);
-    var endErrors = validationSummary.getValidationResults().size();
-    if(endErrors > startErrors){
+    var errors = validationSummary.countValidationResults(() -> {
+      checkCTLinks(row, validationSummary);
+      checkAgainstReporter(row, validationSummary);
+    });
+    if(errors > 0){
       inAccurateStudies.add(row.studyPHS());
     }
   }
@@ -1,12 +1,11 @@
 package bmir.radx.metadata.evaluator.study;
 
 import bmir.radx.metadata.evaluator.SpreadsheetHeaders;
-import bmir.radx.metadata.evaluator.SpreadsheetReader;
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
-import bmir.radx.metadata.evaluator.util.StudyHeaderConverter;
+import bmir.radx.metadata.evaluator.util.ReferenceDataIndex;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -19,39 +18,32 @@ public class StudyCodeListEvaluator {
   private final String NEW_CODE_LISTS_SHEET_NAME = "New Code-List";
   private final int old_value_column = 1;
   private final int new_value_column = 2;
-  private final SpreadsheetReader spreadsheetReader;
+  private final ReferenceDataIndex referenceDataIndex;
 
-  public StudyCodeListEvaluator(SpreadsheetReader spreadsheetReader) {
-    this.spreadsheetReader = spreadsheetReader;
+  public StudyCodeListEvaluator(ReferenceDataIndex referenceDataIndex) {
+    this.referenceDataIndex = referenceDataIndex;
   }
 
   public void check(List<StudyMetadataRow> rows, Consumer<EvaluationResult> consumer, ValidationSummary<SpreadsheetValidationResult> validationSummary){
     //read spreadsheet, get the value sets map <String, set<String>>
-//    var codeListValues = spreadsheetReader.readCodeListValues(CODE_LISTS_SHEET_NAME, old_value_column);
-    var codeListValues = spreadsheetReader.readCodeListValues(NEW_CODE_LISTS_SHEET_NAME, new_value_column);
-    var fields = StudyMetadataRow.class.getDeclaredFields();
+//    var codeListValues = referenceDataIndex.getCodeListValues(CODE_LISTS_SHEET_NAME, old_value_column);
+    var codeListValues = referenceDataIndex.getCodeListValues(NEW_CODE_LISTS_SHEET_NAME, new_value_column);
 
     for (var row: rows){
-      for(var field: fields){
-        field.setAccessible(true);
-        try{
-          String fieldName = field.getName();
+      for(var field: StudyMetadataRowAccessor.all()){
+        String fieldName = field.name();
+        if(codeListValues.containsKey(fieldName) && !fieldName.equals("multiCenterStudy") && !fieldName.equals("species")){
+          Set<String> validValues = codeListValues.get(fieldName);
           Object fieldValue = field.get(row);
-          if(codeListValues.containsKey(fieldName) && !fieldName.equals("multiCenterStudy") && !fieldName.equals("species")){
-            Set<String> validValues = codeListValues.get(fieldName);
-            if(fieldValue!= null){
-              checkSingleCellValue(fieldName, row.rowNumber(), row.studyPHS(), fieldValue.toString(), validValues, validationSummary);
-            }
+          if(fieldValue!= null){
+            checkSingleCellValue(field, row.rowNumber(), row.studyPHS(), fieldValue.toString(), validValues, validationSummary);
           }
-        } catch (IllegalAccessException e) {
-          System.err.println("Unable to access field: " + field.getName());
         }
-
       }
     }
   }
 
-  private void checkSingleCellValue(String fieldName, int rowNumber, String studyPHS, String value, Set<String> validValues, ValidationSummary<SpreadsheetValidationResult> validationSummary) {
+  private void checkSingleCellValue(StudyMetadataRowAccessor field, int rowNumber, String studyPHS, String value, Set<String> validValues, ValidationSummary<SpreadsheetValidationResult> validationSummary) {
     String[] values = value.split(",");
     for (String v : values) {
       String trimmedValue = v.trim(); // Trim whitespace around the value
@@ -61,7 +53,7 @@ public class StudyCodeListEvaluator {
         validationSummary.updateValidationResult(
             new SpreadsheetValidationResult(
                 IssueTypeMapping.IssueType.CONTROLLED_VOCABULARY_CONSISTENCY,
-                StudyHeaderConverter.convertRowFieldToSpreadsheetHeader(fieldName).getHeaderName(),
+                field.header().getHeaderName(),
                 rowNumber,
                 studyPHS,
                 validValues.toString(),
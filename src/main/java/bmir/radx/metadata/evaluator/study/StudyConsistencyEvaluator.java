@@ -19,7 +19,7 @@ import static bmir.radx.metadata.evaluator.SpreadsheetHeaders.*;
 public class StudyConsistencyEvaluator {
   public void evaluate(List<StudyMetadataRow> rows, Consumer<EvaluationResult> consumer, ValidationSummary<SpreadsheetValidationResult> validationSummary){
     List<String> inconsistentRows = new ArrayList<>();
-    var validationResults = validationSummary.getValidationResults();
+    List<SpreadsheetValidationResult> validationResults = new ArrayList<>();
     for(var row: rows){
       if (!multiCenterConsistent(row)){
         inconsistentRows.add(row.studyPHS());
@@ -38,6 +38,7 @@ public class StudyConsistencyEvaluator {
 
 //      checkAcknowledgementStatement(row, validationSummary);
     }
+    validationSummary.updateValidationResults(validationResults);
     int totalStudies = rows.size();
     int inconsistentStudies = inconsistentRows.size();
     var rate = (double) (totalStudies - inconsistentStudies) / totalStudies * 100;
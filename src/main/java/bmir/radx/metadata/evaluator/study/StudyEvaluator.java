@@ -2,22 +2,35 @@ package bmir.radx.metadata.evaluator.study;
 
 import bmir.radx.metadata.evaluator.EvaluationReport;
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
-import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.sharedComponents.Evaluator;
+import bmir.radx.metadata.evaluator.sharedComponents.StageScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.function.Consumer;
 
+import static bmir.radx.metadata.evaluator.sharedComponents.StageScheduler.Pool.CPU;
+import static bmir.radx.metadata.evaluator.sharedComponents.StageScheduler.Pool.IO;
+
 @Component
 public class StudyEvaluator implements Evaluator<SpreadsheetValidationResult> {
+  private static final String COMPLETENESS = "completeness";
+  private static final String ACCESSIBILITY = "accessibility";
+  private static final String ACCURACY = "accuracy";
+  private static final String CONSISTENCY = "consistency";
+  private static final String EXPLORER_CROSS_CHECK = "explorer cross-check";
+  private static final String UNIQUENESS = "uniqueness";
+  private static final String VALIDITY = "validity";
+  private static final String CONTROLLED_TERMS = "controlled terms";
+  private static final String LINGUISTIC_QUALITY = "linguistic quality";
   private final Logger logger = LoggerFactory.getLogger(StudyEvaluator.class);
   private final StudyCompletenessEvaluator completenessEvaluator;
   private final StudyConsistencyEvaluator consistencyEvaluator;
@@ -29,6 +42,14 @@ public class StudyEvaluator implements Evaluator<SpreadsheetValidationResult> {
   private final StudyCodeListEvaluator codeListEvaluator;
   private final StudyLinguisticQualityEvaluator linguisticQualityEvaluator;
   private final StudyExplorerCrossChecker explorerCrossChecker;
+  private final SpreadsheetSession spreadsheetSession;
+
+  /**
+   * Number of criteria checked at once on the CPU pool, 0 for the number of processors and 1 to check the criteria
+   * one after another. Accuracy and the explorer cross-check wait for remote services and run on a separate pool.
+   */
+  @Value("${study.evaluation.stage.parallelism:0}")
+  private int stageParallelism;
 
   public StudyEvaluator(StudyCompletenessEvaluator completenessEvaluator,
                         StudyConsistencyEvaluator consistencyEvaluator,
@@ -38,7 +59,8 @@ public class StudyEvaluator implements Evaluator<SpreadsheetValidationResult> {
                         StudyUniquenessEvaluator uniquenessEvaluator,
                         StudyGrammarChecker grammarChecker,
                         StudyCodeListEvaluator codeListEvaluator,
-                        StudyLinguisticQualityEvaluator linguisticQualityEvaluator, StudyExplorerCrossChecker explorerCrossChecker) {
+                        StudyLinguisticQualityEvaluator linguisticQualityEvaluator, StudyExplorerCrossChecker explorerCrossChecker,
+                        SpreadsheetSession spreadsheetSession) {
     this.completenessEvaluator = completenessEvaluator;
     this.consistencyEvaluator = consistencyEvaluator;
     this.accuracyEvaluator = accuracyEvaluator;
@@ -49,6 +71,7 @@ public class StudyEvaluator implements Evaluator<SpreadsheetValidationResult> {
     this.codeListEvaluator = codeListEvaluator;
     this.linguisticQualityEvaluator = linguisticQualityEvaluator;
     this.explorerCrossChecker = explorerCrossChecker;
+    this.spreadsheetSession = spreadsheetSession;
   }
 
   public EvaluationReport<SpreadsheetValidationResult> evaluate(Path... filePaths) {
@@ -57,43 +80,59 @@ public class StudyEvaluator implements Evaluator<SpreadsheetValidationResult> {
     var evaluationResults = new ArrayList<EvaluationResult>();
     Consumer<EvaluationResult> consumer = evaluationResults::add;
 
-    var studyMetadataReader = new SpreadsheetReader();
     var validationResults = new ArrayList<SpreadsheetValidationResult>();
     var invalidStudy = new HashSet<String>();
     var validationSummary = new ValidationSummary<>(validationResults, invalidStudy);
-    try {
-      var studyMetadataRows = studyMetadataReader.readStudyMetadata(metadataFilePath);
+    var studyMetadataRows = spreadsheetSession.getStudyMetadata(metadataFilePath);
 
+    // Validity counts the studies found invalid by the stages before it and rewrites the spreadsheet, so it waits
+    // for them
+    var scheduler = new StageScheduler<SpreadsheetValidationResult>(logger, stageParallelism);
+    scheduler.add(COMPLETENESS, CPU, (stageConsumer, stageSummary) -> {
       logger.info("Start to check completeness of study metadata spreadsheet");
-      completenessEvaluator.evaluate(studyMetadataRows, consumer, validationSummary);
+      completenessEvaluator.evaluate(studyMetadataRows, stageConsumer, stageSummary);
+    });
 
+//    scheduler.add(ACCESSIBILITY, IO, (stageConsumer, stageSummary) -> {
 //      logger.info("Start to check links resolvability of study metadata spreadsheet");
-//      studyAccessibilityEvaluator.evaluate(studyMetadataRows, consumer, validationSummary);
+//      studyAccessibilityEvaluator.evaluate(studyMetadataRows, stageConsumer, stageSummary);
+//    });
 
+    scheduler.add(ACCURACY, IO, (stageConsumer, stageSummary) -> {
       logger.info("Start to check accuracy of study metadata spreadsheet");
-      accuracyEvaluator.evaluate(studyMetadataRows, consumer, validationSummary);
+      accuracyEvaluator.evaluate(studyMetadataRows, stageConsumer, stageSummary);
+    });
 
+    scheduler.add(CONSISTENCY, CPU, (stageConsumer, stageSummary) -> {
       logger.info("Start to check consistency of study metadata spreadsheet");
-      consistencyEvaluator.evaluate(studyMetadataRows, consumer, validationSummary);
-      if (numberOfPaths > 1){
-        Path explorerResultsPath = filePaths[1];
-        explorerCrossChecker.evaluate(metadataFilePath, explorerResultsPath, validationSummary);
-      }
+      consistencyEvaluator.evaluate(studyMetadataRows, stageConsumer, stageSummary);
+    });
+    if (numberOfPaths > 1){
+      Path explorerResultsPath = filePaths[1];
+      scheduler.add(EXPLORER_CROSS_CHECK, IO, (stageConsumer, stageSummary) ->
+          explorerCrossChecker.evaluate(metadataFilePath, explorerResultsPath, stageSummary));
+    }
 
+    scheduler.add(UNIQUENESS, CPU, (stageConsumer, stageSummary) -> {
       logger.info("Start to check uniqueness of study metadata spreadsheet");
-      uniquenessEvaluator.evaluate(studyMetadataRows, consumer, validationSummary);
+      uniquenessEvaluator.evaluate(studyMetadataRows, stageConsumer, stageSummary);
+    });
 
+    scheduler.add(VALIDITY, CPU, (stageConsumer, stageSummary) -> {
       logger.info("Start to check validity of study metadata spreadsheet");
-      studyValidityEvaluator.evaluate(metadataFilePath, studyMetadataRows, consumer, validationSummary);
+      studyValidityEvaluator.evaluate(metadataFilePath, studyMetadataRows, stageConsumer, stageSummary);
+    }, ACCESSIBILITY, ACCURACY, CONSISTENCY, EXPLORER_CROSS_CHECK, UNIQUENESS);
 
+    scheduler.add(CONTROLLED_TERMS, CPU, (stageConsumer, stageSummary) -> {
       logger.info("Start to check controlled terms of study metadata spreadsheet");
-      codeListEvaluator.check(studyMetadataRows, consumer, validationSummary);
+      codeListEvaluator.check(studyMetadataRows, stageConsumer, stageSummary);
+    });
 
+    scheduler.add(LINGUISTIC_QUALITY, CPU, (stageConsumer, stageSummary) -> {
       logger.info("Start to check linguistic quality of study metadata spreadsheet");
-      linguisticQualityEvaluator.check(studyMetadataRows, consumer, validationSummary);
-      return new EvaluationReport<>(evaluationResults, validationSummary.getValidationResults());
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+      linguisticQualityEvaluator.check(studyMetadataRows, stageConsumer, stageSummary);
+    });
+    scheduler.run(consumer, validationSummary);
+    return new EvaluationReport<>(evaluationResults, validationSummary.getValidationResults());
   }
 }
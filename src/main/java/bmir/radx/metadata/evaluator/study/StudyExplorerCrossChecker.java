@@ -1,7 +1,7 @@
 package bmir.radx.metadata.evaluator.study;
 
 import bmir.radx.metadata.evaluator.SpreadsheetHeaders;
-import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
 import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
@@ -24,16 +24,16 @@ import static bmir.radx.metadata.evaluator.SpreadsheetHeaders.*;
 public class StudyExplorerCrossChecker {
   @Value("${study.explorer.results}")
   private String studyExplorerResultsFileName;
-  private final SpreadsheetReader spreadsheetReader;
+  private final SpreadsheetSession spreadsheetSession;
 
-  public StudyExplorerCrossChecker(SpreadsheetReader spreadsheetReader) {
-    this.spreadsheetReader = spreadsheetReader;
+  public StudyExplorerCrossChecker(SpreadsheetSession spreadsheetSession) {
+    this.spreadsheetSession = spreadsheetSession;
   }
 
   public void evaluate(Path studyMetadataPath, Path studyExplorerPath, ValidationSummary<SpreadsheetValidationResult> validationSummary){
     try {
       var explorerResults = readCsvToStudyMetadataRows(studyExplorerPath);
-      var metadataDump = spreadsheetReader.getStudyMetadataMapping(studyMetadataPath);
+      var metadataDump = spreadsheetSession.getStudyMetadataMapping(studyMetadataPath);
 
       for(var explorerResult: explorerResults){
         String phs = explorerResult.studyPHS();
@@ -25,19 +25,18 @@ public class StudyGrammarChecker {
   }
 
   private void evaluateSingleStudyMetadata(StudyMetadataRow row){
-    var clazz = row.getClass();
     var phs = row.studyPHS();
-    for(var field: clazz.getDeclaredFields()){
-      field.setAccessible(true);
-      try{
-        Object value = field.get(row);
-        if (value instanceof String) {
-          grammarChecker.check((String) value, phs, field.getName());
+    for(var field: StudyMetadataRowAccessor.all()){
+      if (field.type() != String.class) {
+        continue;
+      }
+      Object value = field.get(row);
+      if (value != null) {
+        try{
+          grammarChecker.check((String) value, phs, field.name());
+        } catch (IOException e) {
+          throw new RuntimeException(e);
         }
-      } catch (IllegalAccessException e) {
-        throw new RuntimeException(e);
-      } catch (IOException e) {
-        throw new RuntimeException(e);
       }
     }
   }
@@ -0,0 +1,86 @@
+package bmir.radx.metadata.evaluator.study;
+
+import bmir.radx.metadata.evaluator.SpreadsheetHeaders;
+import bmir.radx.metadata.evaluator.StudyTemplateFields;
+import bmir.radx.metadata.evaluator.util.FieldCategory;
+import bmir.radx.metadata.evaluator.util.StudyHeaderConverter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static bmir.radx.metadata.evaluator.util.FieldCategory.RECOMMENDED;
+import static bmir.radx.metadata.evaluator.util.FieldCategory.REQUIRED;
+
+/***
+ * One component of StudyMetadataRow, with its template field, spreadsheet header and completeness category.
+ * The accessors are looked up once from the record components, in declaration order, so the row checks read
+ * the cell values without reflection over the record fields.
+ */
+public record StudyMetadataRowAccessor(String name,
+                                       Class<?> type,
+                                       MethodHandle accessor,
+                                       StudyTemplateFields templateField,
+                                       SpreadsheetHeaders header,
+                                       FieldCategory category) {
+  private static final String ROW_NUMBER = "rowNumber";
+  private static final Set<String> REQUIRED_FIELDS = Set.of("studyProgram", "studyPHS", "studyTitle", "studyDesign", "dataTypes", "studyDomain", "nihInstituteOrCenter", "consentDataUseLimitations", "studyStatus", "hasDataFiles");
+  private static final List<StudyMetadataRowAccessor> ACCESSORS = createAccessors();
+
+  /***
+   * This method return the accessors of all StudyMetadataRow components, including the row number
+   */
+  public static List<StudyMetadataRowAccessor> all() {
+    return ACCESSORS;
+  }
+
+  public Object get(StudyMetadataRow row) {
+    try {
+      return (Object) accessor.invokeExact(row);
+    } catch (Throwable e) {
+      throw new RuntimeException("Error get value of " + name + ": " + e.getMessage());
+    }
+  }
+
+  /***
+   * The row number is not a cell of the spreadsheet, so it has no header, template field or category
+   */
+  public boolean isRowNumber() {
+    return name.equals(ROW_NUMBER);
+  }
+
+  private static List<StudyMetadataRowAccessor> createAccessors() {
+    var lookup = MethodHandles.publicLookup();
+    var accessorType = MethodType.methodType(Object.class, StudyMetadataRow.class);
+    List<StudyMetadataRowAccessor> accessors = new ArrayList<>();
+    for (var component : StudyMetadataRow.class.getRecordComponents()) {
+      var name = component.getName();
+      try {
+        var accessor = lookup.unreflect(component.getAccessor()).asType(accessorType);
+        accessors.add(new StudyMetadataRowAccessor(
+            name,
+            component.getType(),
+            accessor,
+            StudyHeaderConverter.convertRowFieldToTemplateField(name),
+            StudyHeaderConverter.convertRowFieldToSpreadsheetHeader(name),
+            getCategory(name)));
+      } catch (IllegalAccessException e) {
+        throw new RuntimeException("Error access field " + name + ": " + e.getMessage());
+      }
+    }
+    return List.copyOf(accessors);
+  }
+
+  private static FieldCategory getCategory(String name) {
+    if (name.equals(ROW_NUMBER)) {
+      return null;
+    } else if (REQUIRED_FIELDS.contains(name)) {
+      return REQUIRED;
+    } else {
+      return RECOMMENDED;
+    }
+  }
+}
@@ -2,6 +2,8 @@ package bmir.radx.metadata.evaluator.study;
 
 import bmir.radx.metadata.evaluator.IssueLevel;
 import bmir.radx.metadata.evaluator.SpreadsheetHeaders;
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
+import bmir.radx.metadata.evaluator.StreamingSpreadsheetReader;
 import bmir.radx.metadata.evaluator.StudyTemplateFields;
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
 import bmir.radx.metadata.evaluator.result.ValidationSummary;
@@ -9,9 +11,13 @@ import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
 import bmir.radx.metadata.evaluator.util.SpreadsheetUpdater;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.util.StudyHeaderConverter;
+import bmir.radx.metadata.evaluator.util.TemplateGetter;
 import edu.stanford.bmir.radx.metadata.validator.lib.LiteralFieldValidators;
 import edu.stanford.bmir.radx.metadata.validator.lib.ValidatorFactory;
 import edu.stanford.bmir.radx.metadata.validator.lib.thirdPartyValidators.TerminologyServerHandler;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.metadatacenter.artifacts.model.core.TemplateSchemaArtifact;
@@ -47,35 +53,52 @@ public class StudyValidityEvaluator {
 
   private final SpreadsheetUpdater spreadsheetUpdater;
   private final ValidatorFactory validatorFactory;
+  private final SpreadsheetSession spreadsheetSession;
+  private final TemplateGetter templateGetter;
 
-  public StudyValidityEvaluator(SpreadsheetUpdater spreadsheetUpdater, ValidatorFactory validatorFactory) {
+  public StudyValidityEvaluator(SpreadsheetUpdater spreadsheetUpdater, ValidatorFactory validatorFactory, SpreadsheetSession spreadsheetSession, TemplateGetter templateGetter) {
     this.spreadsheetUpdater = spreadsheetUpdater;
     this.validatorFactory = validatorFactory;
+    this.spreadsheetSession = spreadsheetSession;
+    this.templateGetter = templateGetter;
   }
 
   public void evaluate(Path metadataFilePath, List<StudyMetadataRow> rows, Consumer<EvaluationResult> consumer, ValidationSummary<SpreadsheetValidationResult> validationSummary){
-    var workbook = getWorkbook(metadataFilePath);
-    spreadsheetUpdater.addMetadataTab(workbook, templateTitle, templateVersion, templateCreatedOn, templateID);
-//    spreadsheetUpdater.patchMetadata(workbook, metadataFilePath);
-    spreadsheetUpdater.saveWorkbookToFile(workbook, metadataFilePath);
-
-    //Step 1: Use Spreadsheet Validator
-    var validator = validatorFactory.createValidator(
-        new LiteralFieldValidators(new HashMap<>()),
-        new TerminologyServerHandler(null, null)
-    );
-    var spreadsheetValidatorResponse = validator.validateSpreadsheet(metadataFilePath.toString());
-    var mapping = getRowToPhsMap(rows);
-
-    if(spreadsheetValidatorResponse != null){
-      var reports = spreadsheetValidatorResponse.reports();
-      if(reports != null){
-        reports.forEach(result-> {
-          if(!isStudyWebsiteUrlIssue(result)){
-            var phs = mapping.get(result.row());
-            addResultToIssueDatabase(phs, result, validationSummary);
-          }
-        });
+    // The spreadsheet validator only reads workbooks, so CSV and TSV files are validated as a temporary copy
+    var isDelimitedText = StreamingSpreadsheetReader.isDelimitedText(metadataFilePath);
+    var spreadsheetPath = isDelimitedText ? createTemporaryWorkbookPath() : metadataFilePath;
+    try {
+      var workbook = isDelimitedText ? getWorkbookFromDelimitedText(metadataFilePath) : getWorkbook(metadataFilePath);
+      spreadsheetUpdater.addMetadataTab(workbook, templateTitle, templateVersion, templateCreatedOn, templateID);
+//      spreadsheetUpdater.patchMetadata(workbook, metadataFilePath);
+      spreadsheetUpdater.saveWorkbookToFile(workbook, spreadsheetPath);
+      if (!isDelimitedText) {
+        // Only the .metadata tab was added, the parsed study rows are still valid
+        spreadsheetSession.keepParsedSheets(metadataFilePath);
+      }
+
+      //Step 1: Use Spreadsheet Validator
+      var validator = validatorFactory.createValidator(
+          new LiteralFieldValidators(new HashMap<>()),
+          new TerminologyServerHandler(null, null)
+      );
+      var spreadsheetValidatorResponse = validator.validateSpreadsheet(spreadsheetPath.toString());
+      var mapping = getRowToPhsMap(rows);
+
+      if(spreadsheetValidatorResponse != null){
+        var reports = spreadsheetValidatorResponse.reports();
+        if(reports != null){
+          reports.forEach(result-> {
+            if(!isStudyWebsiteUrlIssue(result)){
+              var phs = mapping.get(result.row());
+              addResultToIssueDatabase(phs, result, validationSummary);
+            }
+          });
+        }
+      }
+    } finally {
+      if (isDelimitedText) {
+        deleteTemporaryWorkbook(spreadsheetPath);
       }
     }
 
@@ -102,6 +125,99 @@ public class StudyValidityEvaluator {
     }
   }
 
+  /***
+   * This method copies the records of a CSV or TSV file to the first sheet of a new workbook, at the same row and
+   * column positions. The cells of numeric and temporal template fields are written as numbers and dates, like the
+   * workbook the file was exported from, and everything else as text, so identifiers such as PHS numbers or grant
+   * numbers made only of digits are never turned into numbers.
+   */
+  private Workbook getWorkbookFromDelimitedText(Path metadataFilePath){
+    var workbook = new XSSFWorkbook();
+    var sheet = workbook.createSheet();
+    var dateStyle = workbook.createCellStyle();
+    dateStyle.setDataFormat((short) BuiltinFormats.getBuiltinFormat("m/d/yy"));
+    var templateReporter = templateGetter.getCompiledStudyTemplate().reporter();
+    Map<Integer, CellValueType> columnTypes = new HashMap<>();
+    try {
+      StreamingSpreadsheetReader.forEachDelimitedRecord(metadataFilePath, record -> {
+        var row = sheet.createRow(record.rowNumber() - 1);
+        record.cells().forEach((column, value) -> {
+          var cell = row.createCell(column);
+          if (record.rowNumber() == 1) {
+            columnTypes.put(column, getCellValueType(value, templateReporter));
+            cell.setCellValue(value);
+          } else {
+            setCellValue(cell, value, columnTypes.getOrDefault(column, CellValueType.TEXT), dateStyle);
+          }
+        });
+      });
+    } catch (IOException e) {
+      throw new RuntimeException("Error read file " + metadataFilePath + ": " + e.getMessage(), e);
+    }
+    return workbook;
+  }
+
+  private static CellValueType getCellValueType(String headerName, TemplateReporter templateReporter){
+    StudyTemplateFields field;
+    try {
+      field = StudyTemplateFields.fromHeaderName(headerName.trim());
+    } catch (IllegalArgumentException e) {
+      return CellValueType.TEXT;
+    }
+    var valueConstraints = templateReporter.getValueConstraints(StudyTemplateFields.getFieldPath(field));
+    if (valueConstraints.isEmpty()) {
+      return CellValueType.TEXT;
+    }
+    if (valueConstraints.get().isNumericValueConstraint()) {
+      return CellValueType.NUMERIC;
+    }
+    if (valueConstraints.get().isTemporalValueConstraint()) {
+      return CellValueType.TEMPORAL;
+    }
+    return CellValueType.TEXT;
+  }
+
+  /***
+   * Values that do not parse as the type of their field are kept as text, for the validator to report
+   */
+  private static void setCellValue(Cell cell, String value, CellValueType type, CellStyle dateStyle){
+    switch (type) {
+      case NUMERIC -> {
+        try {
+          cell.setCellValue(Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+          cell.setCellValue(value);
+        }
+      }
+      case TEMPORAL -> {
+        var date = StreamingSpreadsheetReader.parseTextDate(value);
+        if (date == null) {
+          cell.setCellValue(value);
+        } else {
+          cell.setCellValue(date);
+          cell.setCellStyle(dateStyle);
+        }
+      }
+      default -> cell.setCellValue(value);
+    }
+  }
+
+  private static Path createTemporaryWorkbookPath(){
+    try {
+      return Files.createTempFile("study-metadata", ".xlsx");
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void deleteTemporaryWorkbook(Path spreadsheetPath){
+    try {
+      Files.deleteIfExists(spreadsheetPath);
+    } catch (IOException e) {
+      System.err.println("Failed to delete temporary workbook " + spreadsheetPath + ": " + e.getMessage());
+    }
+  }
+
   private String formatReport(SpreadsheetValidationResult report){
     return String.format(
         "In row %d of column '%s', the value '%s' encountered an error of type '%s'. Suggested repair: %s",
@@ -164,36 +280,30 @@ public class StudyValidityEvaluator {
     }
   }
 
-  private void checkCardinality(List<StudyMetadataRow> rows, TemplateSchemaArtifact template, ValidationSummary<SpreadsheetValidationResult> validationSummary) throws IllegalAccessException {
+  private void checkCardinality(List<StudyMetadataRow> rows, TemplateSchemaArtifact template, ValidationSummary<SpreadsheetValidationResult> validationSummary) {
     var templateReporter = new TemplateReporter(template);
     for(var row: rows){
-      for(var field : StudyMetadataRow.class.getDeclaredFields()){
-        try{
-          field.setAccessible(true);
-          String fieldName = field.getName();
-          if(fieldName.equals("description")){
-            continue;
-          }
-          Object value = field.get(row);
-          var templateField = StudyHeaderConverter.convertRowFieldToTemplateField(fieldName);
-          var fieldPath = StudyTemplateFields.getFieldPath(templateField);
-          String delimiter = ",";
-          if(fieldName.equals("studyWebsiteUrl")){
-            delimiter = ";";
-          }
-          if(!isValidCardinality(fieldPath, value, delimiter, templateReporter)){
-            var spreadsheetResult = new SpreadsheetValidationResult(
-                IssueTypeMapping.IssueType.VALIDITY,
-                StudyHeaderConverter.convertRowFieldToSpreadsheetHeader(fieldName).getHeaderName(),
-                row.rowNumber(),
-                row.studyPHS(),
-                "Ensure only one value is provided for this field",
-                value,
-                "Field allows a single value, but multiple values were provided."
-            );
-          }
-        } catch (IllegalAccessException e) {
-          System.err.println("Unable to access field: " + field.getName());
+      for(var field : StudyMetadataRowAccessor.all()){
+        String fieldName = field.name();
+        if(field.isRowNumber() || fieldName.equals("description")){
+          continue;
+        }
+        Object value = field.get(row);
+        var fieldPath = StudyTemplateFields.getFieldPath(field.templateField());
+        String delimiter = ",";
+        if(fieldName.equals("studyWebsiteUrl")){
+          delimiter = ";";
+        }
+        if(!isValidCardinality(fieldPath, value, delimiter, templateReporter)){
+          var spreadsheetResult = new SpreadsheetValidationResult(
+              IssueTypeMapping.IssueType.VALIDITY,
+              field.header().getHeaderName(),
+              row.rowNumber(),
+              row.studyPHS(),
+              "Ensure only one value is provided for this field",
+              value,
+              "Field allows a single value, but multiple values were provided."
+          );
         }
       }
     }
@@ -215,4 +325,9 @@ public class StudyValidityEvaluator {
     return true;
   }
 
+  private enum CellValueType {
+    TEXT,
+    NUMERIC,
+    TEMPORAL
+  }
 }
@@ -0,0 +1,16 @@
+package bmir.radx.metadata.evaluator.util;
+
+import org.metadatacenter.artifacts.model.core.TemplateSchemaArtifact;
+import org.metadatacenter.artifacts.model.visitors.TemplateReporter;
+
+/***
+ * A template parsed once, with its id, its raw JSON text for schema validation, its reporter for field lookups and
+ * the dense index of its fields for the per-value checks.
+ * Instances are shared by all evaluators and must not be modified.
+ */
+public record CompiledTemplate(String id,
+                               String content,
+                               TemplateSchemaArtifact schema,
+                               TemplateReporter reporter,
+                               TemplateFieldIndex fields) {
+}
@@ -1,14 +1,14 @@
 package bmir.radx.metadata.evaluator.util;
 
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
+import bmir.radx.metadata.evaluator.dataFile.FieldProjection;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 
 import static bmir.radx.metadata.evaluator.util.InstanceArtifactPath.*;
 
 public class InstanceArtifactValueGetter {
   public static String getValue(TemplateInstanceArtifact instanceArtifact, InstanceArtifactPath path){
-    var valuesReporter = new TemplateInstanceValuesReporter(instanceArtifact);
-    var fieldArtifact = valuesReporter.getValues().get(path.getPath());
+    FieldProjection.require(instanceArtifact, path.getPath());
+    var fieldArtifact = InstanceView.of(instanceArtifact).getValue(path.getPath());
     return fieldArtifact.jsonLdValue().orElse(null);
   }
 
@@ -0,0 +1,49 @@
+package bmir.radx.metadata.evaluator.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import edu.stanford.bmir.radx.metadata.validator.lib.AttributeValueFieldValues;
+import edu.stanford.bmir.radx.metadata.validator.lib.FieldValues;
+import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * The field values of a metadata instance, flattened by TemplateInstanceValuesReporter once per instance and shared
+ * by every criterion. Views are cached by instance identity and dropped with the instance.
+ */
+public class InstanceView {
+  private static final Cache<TemplateInstanceArtifact, InstanceView> VIEWS = Caffeine.newBuilder()
+      .weakKeys()
+      .build();
+  private final Map<String, FieldValues> values;
+  private final List<AttributeValueFieldValues> attributeValueFields;
+
+  private InstanceView(TemplateInstanceValuesReporter valuesReporter) {
+    // Wrapped rather than copied, so the values keep the order of the reporter
+    this.values = Collections.unmodifiableMap(valuesReporter.getValues());
+    this.attributeValueFields = Collections.unmodifiableList(valuesReporter.getAttributeValueFields());
+  }
+
+  public static InstanceView of(TemplateInstanceArtifact instance) {
+    return VIEWS.get(instance, key -> new InstanceView(new TemplateInstanceValuesReporter(key)));
+  }
+
+  /***
+   * This method returns the values keyed by the instance path, e.g. "/Data File Creators[0]/Creator Name"
+   */
+  public Map<String, FieldValues> getValues() {
+    return values;
+  }
+
+  public List<AttributeValueFieldValues> getAttributeValueFields() {
+    return attributeValueFields;
+  }
+
+  public FieldValues getValue(String path) {
+    return values.get(path);
+  }
+}
@@ -1,13 +1,11 @@
 package bmir.radx.metadata.evaluator.util;
 
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 
 public class JsonInstanceValueGetter {
 
   public static String getValue(TemplateInstanceArtifact instance, String fieldPath){
-    TemplateInstanceValuesReporter valuesReporter = new TemplateInstanceValuesReporter(instance);
-    var fieldValue = valuesReporter.getValues().get(fieldPath);
+    var fieldValue = InstanceView.of(instance).getValue(fieldPath);
     var value = "";
     if(fieldValue!=null){
       value += fieldValue.jsonLdValue().orElse("");
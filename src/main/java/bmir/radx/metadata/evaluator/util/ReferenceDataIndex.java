@@ -0,0 +1,110 @@
+package bmir.radx.metadata.evaluator.util;
+
+import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static bmir.radx.metadata.evaluator.util.ReferenceDataIndexGenerator.*;
+
+/***
+ * Reference data from the bundled RADx spreadsheets, loaded once from the JSON indexes generated at build time.
+ * When an index is missing, e.g. when running from an IDE without the Maven build, the spreadsheet is parsed instead.
+ */
+@Component
+public class ReferenceDataIndex {
+  private final ObjectMapper mapper;
+  private final SpreadsheetReader spreadsheetReader;
+  private final Supplier<Map<String, String>> dataFile2Study = Suppliers.memoize(this::loadDataFile2Study);
+  private final Supplier<Optional<Map<String, Map<Integer, Map<String, Set<String>>>>>> codeLists = Suppliers.memoize(this::loadCodeLists);
+  private final Map<String, Map<String, Set<String>>> parsedCodeLists = new ConcurrentHashMap<>();
+
+  public ReferenceDataIndex(ObjectMapper mapper, SpreadsheetReader spreadsheetReader) {
+    this.mapper = mapper;
+    this.spreadsheetReader = spreadsheetReader;
+  }
+
+  /***
+   * This method return data file name to study phs mappings of the RADx bundles spreadsheet
+   */
+  public Map<String, String> getDataFile2StudyMapping() {
+    return dataFile2Study.get();
+  }
+
+  /***
+   * This method return the code list values of one value column of a code list sheet, keyed by study field.
+   * A column the index does not hold is an error, instead of a code list without values.
+   */
+  public Map<String, Set<String>> getCodeListValues(String sheetName, int column) {
+    var index = codeLists.get();
+    if (index.isEmpty()) {
+      return parsedCodeLists.computeIfAbsent(sheetName + "/" + column,
+          key -> toImmutableValues(spreadsheetReader.readCodeListValues(sheetName, column)));
+    }
+    var sheet = index.get().get(sheetName);
+    if (sheet == null) {
+      throw new IllegalArgumentException("Sheet " + sheetName + " does not exist in the file.");
+    }
+    var values = sheet.get(column);
+    if (values == null) {
+      throw new IllegalArgumentException("Column " + column + " of sheet " + sheetName + " is not in the code list index.");
+    }
+    return values;
+  }
+
+  private Map<String, String> loadDataFile2Study() {
+    var index = readIndex(DATA_FILE_TO_STUDY_INDEX, new TypeReference<Map<String, String>>() {});
+    if (index == null) {
+      return ImmutableMap.copyOf(spreadsheetReader.getDataFile2StudyMapping());
+    }
+    return ImmutableMap.copyOf(index);
+  }
+
+  private Optional<Map<String, Map<Integer, Map<String, Set<String>>>>> loadCodeLists() {
+    var index = readIndex(CODE_LIST_INDEX, new TypeReference<Map<String, Map<Integer, Map<String, Set<String>>>>>() {});
+    return Optional.ofNullable(index).map(ReferenceDataIndex::toImmutable);
+  }
+
+  private <T> T readIndex(String indexName, TypeReference<T> type) {
+    var resource = INDEX_DIRECTORY + "/" + indexName;
+    try (var inputStream = getClass().getClassLoader().getResourceAsStream(resource)) {
+      if (inputStream == null) {
+        System.err.println("Reference data index " + resource + " not found, reading the spreadsheet instead");
+        return null;
+      }
+      return mapper.readValue(inputStream, type);
+    } catch (IOException e) {
+      throw new RuntimeException("Error read reference data index " + resource + ": " + e.getMessage());
+    }
+  }
+
+  private static Map<String, Map<Integer, Map<String, Set<String>>>> toImmutable(Map<String, Map<Integer, Map<String, Set<String>>>> codeLists) {
+    var sheets = ImmutableMap.<String, Map<Integer, Map<String, Set<String>>>>builder();
+    codeLists.forEach((sheetName, columns) -> {
+      var immutableColumns = ImmutableMap.<Integer, Map<String, Set<String>>>builder();
+      columns.forEach((column, values) -> immutableColumns.put(column, toImmutableValues(values)));
+      sheets.put(sheetName, immutableColumns.build());
+    });
+    return sheets.build();
+  }
+
+  private static Map<String, Set<String>> toImmutableValues(Map<String, Set<String>> values) {
+    var immutableValues = ImmutableMap.<String, Set<String>>builder();
+    values.forEach((field, fieldValues) -> {
+      if (field != null) {
+        immutableValues.put(field, ImmutableSet.copyOf(fieldValues));
+      }
+    });
+    return immutableValues.build();
+  }
+}
@@ -0,0 +1,75 @@
+package bmir.radx.metadata.evaluator.util;
+
+import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/***
+ * Build step that converts the bundled reference spreadsheets into JSON indexes, which ReferenceDataIndex loads at
+ * runtime instead of parsing the spreadsheets with POI. It is run by the exec-maven-plugin in the process-classes
+ * phase with the classes output directory as its only argument.
+ */
+public class ReferenceDataIndexGenerator {
+  static final String INDEX_DIRECTORY = "reference-index";
+  static final String DATA_FILE_TO_STUDY_INDEX = "data-file-to-study.json";
+  static final String CODE_LIST_INDEX = "code-lists.json";
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      throw new IllegalArgumentException("Usage: ReferenceDataIndexGenerator <classes output directory>");
+    }
+    var outputDirectory = Path.of(args[0]).resolve(INDEX_DIRECTORY);
+    Files.createDirectories(outputDirectory);
+
+    var properties = new Properties();
+    try (var inputStream = openResource("application.properties")) {
+      properties.load(inputStream);
+    }
+
+    var mapper = new ObjectMapper();
+    var spreadsheetReader = new SpreadsheetReader();
+
+    try (var inputStream = openResource(properties.getProperty("radx.bundles.mapping.file.name"))) {
+      var dataFile2Study = new TreeMap<>(spreadsheetReader.readDataFile2StudyMapping(inputStream));
+      mapper.writeValue(outputDirectory.resolve(DATA_FILE_TO_STUDY_INDEX).toFile(), dataFile2Study);
+    }
+
+    try (var inputStream = openResource(properties.getProperty("radx.study.code.list.file.name"))) {
+      var codeLists = spreadsheetReader.readAllCodeListValues(inputStream);
+      Map<String, Map<Integer, Map<String, Set<String>>>> sortedCodeLists = new LinkedHashMap<>();
+      codeLists.forEach((sheetName, columns) -> {
+        Map<Integer, Map<String, Set<String>>> sortedColumns = new TreeMap<>();
+        columns.forEach((column, values) -> {
+          Map<String, Set<String>> sortedValues = new TreeMap<>();
+          // Rows whose header has no study field can never be looked up
+          values.forEach((field, fieldValues) -> {
+            if (field != null) {
+              sortedValues.put(field, new TreeSet<>(fieldValues));
+            }
+          });
+          sortedColumns.put(column, sortedValues);
+        });
+        sortedCodeLists.put(sheetName, sortedColumns);
+      });
+      mapper.writeValue(outputDirectory.resolve(CODE_LIST_INDEX).toFile(), sortedCodeLists);
+    }
+  }
+
+  private static InputStream openResource(String name) throws IOException {
+    var inputStream = ReferenceDataIndexGenerator.class.getClassLoader().getResourceAsStream(name);
+    if (inputStream == null) {
+      throw new IOException("Resource not found: " + name);
+    }
+    return inputStream;
+  }
+}
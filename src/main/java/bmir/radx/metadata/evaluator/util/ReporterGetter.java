@@ -1,6 +1,5 @@
 package bmir.radx.metadata.evaluator.util;
 
-import edu.stanford.bmir.radx.metadata.validator.lib.TemplateInstanceValuesReporter;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.metadatacenter.artifacts.model.visitors.TemplateReporter;
 import org.springframework.stereotype.Component;
@@ -14,11 +13,18 @@ public class ReporterGetter {
   }
 
   public TemplateReporter getTemplateReporter(){
-    var template = templateGetter.getDataFileTemplate();
-    return new TemplateReporter(template);
+    return templateGetter.getCompiledDataFileTemplate().reporter();
   }
 
-  public TemplateInstanceValuesReporter getTemplateInstanceValuesReporter(TemplateInstanceArtifact instance){
-    return new TemplateInstanceValuesReporter(instance);
+  public TemplateFieldIndex getTemplateFieldIndex(){
+    return templateGetter.getCompiledDataFileTemplate().fields();
+  }
+
+  public TemplateFieldIndex getTemplateFieldIndex(TemplateInstanceArtifact instance){
+    return templateGetter.getCompiledDataFileTemplate(instance).fields();
+  }
+
+  public InstanceView getInstanceView(TemplateInstanceArtifact instance){
+    return InstanceView.of(instance);
   }
 }
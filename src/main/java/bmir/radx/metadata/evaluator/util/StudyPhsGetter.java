@@ -1,7 +1,8 @@
 package bmir.radx.metadata.evaluator.util;
 
-import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
 import bmir.radx.metadata.evaluator.dataFile.DataFileMetadataReader;
+import bmir.radx.metadata.evaluator.dataFile.FieldProjection;
 import bmir.radx.metadata.evaluator.study.StudyMetadataRow;
 import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.springframework.stereotype.Component;
@@ -15,11 +16,11 @@ public class StudyPhsGetter {
   private final String DATA_FILE_PARENT_STUDIES = "Data File Parent Studies";
   private final String PHS_IDENTIFIER = "PHS Identifier";
   private final DataFileMetadataReader dataFileMetadataReader;
-  private final SpreadsheetReader studyMetadataReader;
+  private final SpreadsheetSession spreadsheetSession;
 
-  public StudyPhsGetter(DataFileMetadataReader dataFileMetadataReader, SpreadsheetReader studyMetadataReader) {
+  public StudyPhsGetter(DataFileMetadataReader dataFileMetadataReader, SpreadsheetSession spreadsheetSession) {
     this.dataFileMetadataReader = dataFileMetadataReader;
-    this.studyMetadataReader = studyMetadataReader;
+    this.spreadsheetSession = spreadsheetSession;
   }
 
   public String getCleanStudyPhs(TemplateInstanceArtifact templateInstanceArtifact){
@@ -36,6 +37,7 @@ public class StudyPhsGetter {
   }
 
   public String getStudyPhs(TemplateInstanceArtifact templateInstanceArtifact){
+    FieldProjection.require(templateInstanceArtifact, DATA_FILE_PARENT_STUDIES);
     var parentStudiesArtifacts = templateInstanceArtifact.multiInstanceElementInstances().get(DATA_FILE_PARENT_STUDIES);
     var dataFileStudyPhs = parentStudiesArtifacts.get(0).singleInstanceFieldInstances().get(PHS_IDENTIFIER).jsonLdValue();
     return dataFileStudyPhs.orElse(null);
@@ -43,28 +45,20 @@ public class StudyPhsGetter {
 
   public Set<String> getStudyPhsPool(Path study, Path datafile) throws IOException {
     Set<String> studyPhsPool = new HashSet<>();
-    Collection<TemplateInstanceArtifact> dataFileInstances = new ArrayList<>();
     List<StudyMetadataRow> studyMetadataInstances = new ArrayList<>();
 
     if(study != null){
-      studyMetadataInstances = studyMetadataReader.readStudyMetadata(study);
+      studyMetadataInstances = spreadsheetSession.getStudyMetadata(study);
       updatePool(studyPhsPool, studyMetadataInstances);
     }
     if(datafile != null){
-      dataFileInstances = dataFileMetadataReader.readDataFileMetadata(datafile).values();
-      updatePool(studyPhsPool, dataFileInstances);
+      // Only the PHS of each instance is needed, so the instances are not kept in memory
+      dataFileMetadataReader.forEachDataFile(datafile, (path, dataFileInstance) -> studyPhsPool.add(getCleanStudyPhs(dataFileInstance)));
     }
 
     return studyPhsPool;
   }
 
-  private void updatePool(Set<String> studyPhsPool, Collection<TemplateInstanceArtifact> dataFileInstances){
-    for(var dataFileInstance: dataFileInstances){
-      var studyPhs = getCleanStudyPhs(dataFileInstance);
-      studyPhsPool.add(studyPhs);
-    }
-  }
-
   private void updatePool(Set<String> studyPhsPool, List<StudyMetadataRow> studyMetadataInstances){
     for(var studyMetadataInstance: studyMetadataInstances){
       studyPhsPool.add(studyMetadataInstance.studyPHS());
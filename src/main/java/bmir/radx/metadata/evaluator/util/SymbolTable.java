@@ -0,0 +1,62 @@
+package bmir.radx.metadata.evaluator.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/***
+ * Shared table of the strings that recur across metadata instances and validation results, such as field paths,
+ * study PHS, funder names and controlled term labels and IRIs. Equal strings are replaced by a single canonical
+ * instance, which is released again once nothing refers to it.
+ */
+public class SymbolTable {
+  /**
+   * Longer strings, e.g. descriptions or HTML tables, are rarely repeated and are not interned
+   */
+  private static final int MAX_INTERNED_LENGTH = 512;
+  private static final Interner<String> SYMBOLS = Interners.newWeakInterner();
+
+  public static String intern(String value) {
+    if (value == null || value.length() > MAX_INTERNED_LENGTH) {
+      return value;
+    }
+    return SYMBOLS.intern(value);
+  }
+
+  /***
+   * This method replaces the text values of the JSON tree with their canonical instances.
+   * Field names are already canonicalized by the Jackson parser.
+   */
+  public static void internTextValues(JsonNode node) {
+    if (node instanceof ObjectNode objectNode) {
+      var fields = objectNode.fields();
+      while (fields.hasNext()) {
+        var field = fields.next();
+        var value = field.getValue();
+        if (value.isTextual()) {
+          field.setValue(internText(value));
+        } else {
+          internTextValues(value);
+        }
+      }
+    } else if (node instanceof ArrayNode arrayNode) {
+      for (int i = 0; i < arrayNode.size(); i++) {
+        var element = arrayNode.get(i);
+        if (element.isTextual()) {
+          arrayNode.set(i, internText(element));
+        } else {
+          internTextValues(element);
+        }
+      }
+    }
+  }
+
+  private static JsonNode internText(JsonNode textNode) {
+    var value = textNode.textValue();
+    var symbol = intern(value);
+    return symbol == value ? textNode : TextNode.valueOf(symbol);
+  }
+}
@@ -0,0 +1,214 @@
+package bmir.radx.metadata.evaluator.util;
+
+import bmir.radx.metadata.evaluator.dataFile.FieldsCollector;
+import bmir.radx.metadata.evaluator.dataFile.RecommendedFields;
+import org.metadatacenter.artifacts.model.core.ParentSchemaArtifact;
+import org.metadatacenter.artifacts.model.core.TemplateSchemaArtifact;
+import org.metadatacenter.artifacts.model.visitors.TemplateReporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * Dense table of the fields of a template. Every field path gets an integer id, and the per-field facts the
+ * evaluators need for each value are kept in arrays indexed by that id, so they are computed once per template
+ * instead of once per value.
+ * Paths are looked up exactly like TemplateReporter.getValueConstraints, so "/Element[0]/Field" is only found
+ * after the indices are removed with getIdIgnoringIndices.
+ */
+public class TemplateFieldIndex {
+  private static final byte REQUIRED = 1;
+  private static final byte RECOMMENDED = 1 << 1;
+  private static final byte LINK = 1 << 2;
+  private static final byte CONTROLLED_TERM = 1 << 3;
+
+  private final Map<String, Integer> ids;
+  private final String[] paths;
+  private final byte[] flags;
+  private final int[] parentElements;
+  private final String[] elementNames;
+  private final int requiredFieldCount;
+  private final int recommendedFieldCount;
+  private final int optionalFieldCount;
+
+  private TemplateFieldIndex(Map<String, Integer> ids, String[] paths, byte[] flags, int[] parentElements,
+                             String[] elementNames, int requiredFieldCount, int recommendedFieldCount,
+                             int optionalFieldCount) {
+    this.ids = ids;
+    this.paths = paths;
+    this.flags = flags;
+    this.parentElements = parentElements;
+    this.elementNames = elementNames;
+    this.requiredFieldCount = requiredFieldCount;
+    this.recommendedFieldCount = recommendedFieldCount;
+    this.optionalFieldCount = optionalFieldCount;
+  }
+
+  /***
+   * This method indexes every field of the template. The required, recommended and optional counts are taken over
+   * the fields listed by FieldsCollector, which is what the completeness rates have always been computed over.
+   */
+  public static TemplateFieldIndex compile(TemplateSchemaArtifact template, TemplateReporter templateReporter) {
+    var completenessFields = new FieldsCollector().getAllFields(template);
+    List<String> fieldPaths = new ArrayList<>(completenessFields);
+    collectFieldPaths(template, "", fieldPaths);
+
+    Map<String, Integer> ids = new HashMap<>();
+    List<String> paths = new ArrayList<>();
+    for (var path : fieldPaths) {
+      if (ids.putIfAbsent(path, paths.size()) == null) {
+        paths.add(path);
+      }
+    }
+
+    var flags = new byte[paths.size()];
+    var parentElements = new int[paths.size()];
+    Map<String, Integer> elementIds = new LinkedHashMap<>();
+    for (int id = 0; id < paths.size(); id++) {
+      var path = paths.get(id);
+      var valueConstraints = templateReporter.getValueConstraints(path);
+      if (valueConstraints.isPresent()) {
+        var constraints = valueConstraints.get();
+        flags[id] |= constraints.requiredValue() ? REQUIRED : 0;
+        flags[id] |= constraints.isLinkValueConstraint() ? LINK : 0;
+        flags[id] |= constraints.isControlledTermValueConstraint() ? CONTROLLED_TERM : 0;
+      }
+      //RADx Metadata Specification 1.0 doesn't implement recommended option
+      flags[id] |= RecommendedFields.isRecommendedField(path) ? RECOMMENDED : 0;
+      parentElements[id] = elementIds.computeIfAbsent(path.split("/")[1], name -> elementIds.size());
+    }
+
+    int required = 0;
+    int recommended = 0;
+    int optional = 0;
+    for (var path : completenessFields) {
+      int id = ids.get(path);
+      if ((flags[id] & REQUIRED) != 0) {
+        required++;
+      } else if ((flags[id] & RECOMMENDED) != 0) {
+        recommended++;
+      } else {
+        optional++;
+      }
+    }
+
+    return new TemplateFieldIndex(Map.copyOf(ids), paths.toArray(String[]::new), flags, parentElements,
+        elementIds.keySet().toArray(String[]::new), required, recommended, optional);
+  }
+
+  private static void collectFieldPaths(ParentSchemaArtifact parent, String parentPath, List<String> fieldPaths) {
+    for (var field : parent.getFieldKeys()) {
+      fieldPaths.add(parentPath + "/" + field);
+    }
+    for (var element : parent.getElementKeys()) {
+      collectFieldPaths(parent.getElementSchemaArtifact(element), parentPath + "/" + element, fieldPaths);
+    }
+  }
+
+  public int size() {
+    return paths.length;
+  }
+
+  /***
+   * This method returns the id of the field path, or -1 when the path is not a field of the template
+   */
+  public int getId(String path) {
+    var id = ids.get(path);
+    return id == null ? -1 : id;
+  }
+
+  /***
+   * Same as getId, but instance paths such as "/Data File Creators[1]/Creator Name" are matched without the indices
+   */
+  public int getIdIgnoringIndices(String path) {
+    return getId(removeIndices(path));
+  }
+
+  public String getPath(int id) {
+    return paths[id];
+  }
+
+  public boolean isRequired(int id) {
+    return (flags[id] & REQUIRED) != 0;
+  }
+
+  public boolean isRecommended(int id) {
+    return (flags[id] & RECOMMENDED) != 0;
+  }
+
+  public boolean isLink(int id) {
+    return id >= 0 && (flags[id] & LINK) != 0;
+  }
+
+  public boolean isControlledTerm(int id) {
+    return id >= 0 && (flags[id] & CONTROLLED_TERM) != 0;
+  }
+
+  /***
+   * This method returns the id of the first path segment of the field, which is the top-level element
+   * or the field itself for fields directly under the template
+   */
+  public int getParentElement(int id) {
+    return parentElements[id];
+  }
+
+  public String getElementName(int elementId) {
+    return elementNames[elementId];
+  }
+
+  public int getElementCount() {
+    return elementNames.length;
+  }
+
+  public int getRequiredFieldCount() {
+    return requiredFieldCount;
+  }
+
+  public int getRecommendedFieldCount() {
+    return recommendedFieldCount;
+  }
+
+  public int getOptionalFieldCount() {
+    return optionalFieldCount;
+  }
+
+  /***
+   * Same as path.replaceAll("\\[\\d+\\]", ""), without a regular expression
+   */
+  public static String removeIndices(String path) {
+    int open = path.indexOf('[');
+    if (open < 0) {
+      return path;
+    }
+    var result = new StringBuilder(path.length());
+    int start = 0;
+    while (open >= 0) {
+      int close = path.indexOf(']', open);
+      if (close < 0 || !isDigits(path, open + 1, close)) {
+        result.append(path, start, open + 1);
+        start = open + 1;
+      } else {
+        result.append(path, start, open);
+        start = close + 1;
+      }
+      open = path.indexOf('[', start);
+    }
+    return result.append(path, start, path.length()).toString();
+  }
+
+  private static boolean isDigits(String value, int start, int end) {
+    if (start == end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -2,17 +2,34 @@ package bmir.radx.metadata.evaluator.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
 import org.metadatacenter.artifacts.model.core.TemplateSchemaArtifact;
 import org.metadatacenter.artifacts.model.reader.JsonArtifactReader;
+import org.metadatacenter.artifacts.model.visitors.TemplateReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/***
+ * Registry of the bundled study and data file templates. Each template is read and parsed on first use only,
+ * and the same CompiledTemplate is handed out for the rest of the process.
+ * Other versions of the data file template can be listed in data.file.template.versions. They are keyed by their
+ * template id, so every data file instance is evaluated against the template its schema:isBasedOn points to.
+ */
 @Component
 public class TemplateGetter {
   @Value("${study.template.file.name}")
@@ -20,40 +37,97 @@ public class TemplateGetter {
 
   @Value("${data.file.template.file.name}")
   private String dataFileTemplateFileName;
+
+  @Value("${data.file.template.versions:}")
+  private String dataFileTemplateVersions;
+  private final Logger logger = LoggerFactory.getLogger(TemplateGetter.class);
   private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Supplier<CompiledTemplate> studyTemplate = Suppliers.memoize(() -> compile(studyTemplateFileName));
+  private final Supplier<CompiledTemplate> dataFileTemplate = Suppliers.memoize(() -> compile(dataFileTemplateFileName));
+  private final Supplier<Map<String, CompiledTemplate>> dataFileTemplates = Suppliers.memoize(this::compileDataFileTemplates);
+  private final Set<String> unknownTemplateIds = ConcurrentHashMap.newKeySet();
+
+  public CompiledTemplate getCompiledStudyTemplate() {
+    return studyTemplate.get();
+  }
+
+  public CompiledTemplate getCompiledDataFileTemplate() {
+    return dataFileTemplate.get();
+  }
+
+  /***
+   * This method return the data file template version the instance is based on.
+   * Instances based on a template that is not registered are evaluated against the bundled template.
+   */
+  public CompiledTemplate getCompiledDataFileTemplate(TemplateInstanceArtifact instance) {
+    var templates = dataFileTemplates.get();
+    var isBasedOn = instance.isBasedOn();
+    if (templates.size() == 1 || isBasedOn == null) {
+      return getCompiledDataFileTemplate();
+    }
+    var templateId = isBasedOn.toString();
+    var template = templates.get(templateId);
+    if (template != null) {
+      return template;
+    }
+    if (unknownTemplateIds.add(templateId)) {
+      logger.warn("Data file template {} is not registered, using {} instead", templateId, dataFileTemplateFileName);
+    }
+    return getCompiledDataFileTemplate();
+  }
 
   public TemplateSchemaArtifact getStudyTemplate() {
-    return getTemplate(studyTemplateFileName);
+    return getCompiledStudyTemplate().schema();
   }
 
   public TemplateSchemaArtifact getDataFileTemplate() {
-    return getTemplate(dataFileTemplateFileName);
+    return getCompiledDataFileTemplate().schema();
   }
 
   public String getDataFileTemplateString(){
-    return getTemplateString(dataFileTemplateFileName);
+    return getCompiledDataFileTemplate().content();
   }
 
-  private TemplateSchemaArtifact getTemplate(String fileName) {
-    var jsonSchemaArtifactReader = new JsonArtifactReader();
-    try (InputStream inputStream = TemplateGetter.class.getClassLoader().getResourceAsStream(fileName)) {
-      var templateNode = objectMapper.readTree(inputStream);
-      return jsonSchemaArtifactReader.readTemplateSchemaArtifact((ObjectNode) templateNode);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+  private Map<String, CompiledTemplate> compileDataFileTemplates() {
+    Map<String, CompiledTemplate> templates = new LinkedHashMap<>();
+    var bundledTemplate = getCompiledDataFileTemplate();
+    templates.put(bundledTemplate.id(), bundledTemplate);
+    for (var fileName : dataFileTemplateVersions.split(",")) {
+      fileName = fileName.trim();
+      if (fileName.isEmpty()) {
+        continue;
+      }
+      var template = compile(fileName);
+      if (templates.putIfAbsent(template.id(), template) != null) {
+        logger.warn("Data file template {} of {} is already registered, ignoring it", template.id(), fileName);
+      }
     }
+    return Collections.unmodifiableMap(templates);
   }
 
-  private String getTemplateString(String fileName){
-    try{
-      var resourceUrl = TemplateGetter.class.getClassLoader().getResource(fileName);
-      if (resourceUrl == null) {
+  private CompiledTemplate compile(String fileName) {
+    try (InputStream inputStream = openTemplate(fileName)) {
+      if (inputStream == null) {
         throw new IllegalArgumentException(fileName + " not found!");
       }
-      var path = Paths.get(resourceUrl.toURI());
-      return Files.readString(path);
-    } catch (IOException | URISyntaxException e) {
-      throw new RuntimeException("Error get string for file " + fileName);
+      var content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+      var templateNode = objectMapper.readTree(content);
+      var jsonSchemaArtifactReader = new JsonArtifactReader();
+      var schema = jsonSchemaArtifactReader.readTemplateSchemaArtifact((ObjectNode) templateNode);
+      var reporter = new TemplateReporter(schema);
+      var id = templateNode.path("@id").asText(fileName);
+      return new CompiledTemplate(id, content, schema, reporter, TemplateFieldIndex.compile(schema, reporter));
+    } catch (IOException e) {
+      throw new RuntimeException("Error read template " + fileName + ": " + e.getMessage(), e);
+    }
+  }
+
+  private InputStream openTemplate(String fileName) throws IOException {
+    var path = Path.of(fileName);
+    if (Files.isRegularFile(path)) {
+      return Files.newInputStream(path);
     }
+    // Read the resource as a stream, so the template is also found when it is packaged in the jar
+    return TemplateGetter.class.getClassLoader().getResourceAsStream(fileName);
   }
 }
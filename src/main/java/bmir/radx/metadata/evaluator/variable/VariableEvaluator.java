@@ -2,7 +2,7 @@ package bmir.radx.metadata.evaluator.variable;
 
 import bmir.radx.metadata.evaluator.EvaluationReport;
 import bmir.radx.metadata.evaluator.result.EvaluationResult;
-import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
 import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
 import bmir.radx.metadata.evaluator.sharedComponents.Evaluator;
 import org.springframework.stereotype.Component;
@@ -18,11 +18,13 @@ public class VariableEvaluator implements Evaluator<SpreadsheetValidationResult>
   private final VariableCompletenessEvaluator completenessEvaluator;
   private final CoreCdeEvaluator coreCdeEvaluator;
   private final ConsistentEvaluator consistentEvaluator;
+  private final SpreadsheetSession spreadsheetSession;
 
-  public VariableEvaluator(VariableCompletenessEvaluator completenessEvaluator, CoreCdeEvaluator coreCdeEvaluator, ConsistentEvaluator consistentEvaluator) {
+  public VariableEvaluator(VariableCompletenessEvaluator completenessEvaluator, CoreCdeEvaluator coreCdeEvaluator, ConsistentEvaluator consistentEvaluator, SpreadsheetSession spreadsheetSession) {
     this.completenessEvaluator = completenessEvaluator;
     this.coreCdeEvaluator = coreCdeEvaluator;
     this.consistentEvaluator = consistentEvaluator;
+    this.spreadsheetSession = spreadsheetSession;
   }
 
   public EvaluationReport<SpreadsheetValidationResult> evaluate(Path... filePaths) {
@@ -30,11 +32,12 @@ public class VariableEvaluator implements Evaluator<SpreadsheetValidationResult>
     Path metadataFilePath = filePaths[0];
     var results = new ArrayList<EvaluationResult>();
     Consumer<EvaluationResult> consumer = results::add;
-    var variableMetadataReader = new SpreadsheetReader();
 
     try {
-      var variableMetadataRows = variableMetadataReader.readVariablesMetadata(metadataFilePath);
-      var allVariablesRows = variableMetadataReader.readAllVariables(metadataFilePath);
+      // Both sheets are read with a single open of the workbook
+      var variableSpreadsheet = spreadsheetSession.getVariableSpreadsheet(metadataFilePath);
+      var variableMetadataRows = variableSpreadsheet.variableMetadataRows();
+      var allVariablesRows = variableSpreadsheet.allVariablesRows();
       completenessEvaluator.evaluate(variableMetadataRows, consumer);
       coreCdeEvaluator.evaluate(variableMetadataRows, consumer);
       consistentEvaluator.evaluate(variableMetadataRows, allVariablesRows, consumer);
@@ -0,0 +1,7 @@
+package bmir.radx.metadata.evaluator.variable;
+
+import java.util.List;
+
+public record VariableSpreadsheet(List<VariableMetadataRow> variableMetadataRows,
+                                  List<AllVariablesRow> allVariablesRows) {
+}
@@ -0,0 +1,236 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.result.EvaluationResult;
+import bmir.radx.metadata.evaluator.result.JsonValidationResult;
+import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import bmir.radx.metadata.evaluator.sharedComponents.CompletionRateChecker;
+import bmir.radx.metadata.evaluator.sharedComponents.LinkChecker;
+import bmir.radx.metadata.evaluator.util.ReporterGetter;
+import bmir.radx.metadata.evaluator.util.StudyPhsGetter;
+import bmir.radx.metadata.evaluator.util.TemplateGetter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidationReport;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidationResult;
+import edu.stanford.bmir.radx.metadata.validator.lib.Validator;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidatorFactory;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/***
+ * The data file criteria wired without the Spring context, for tests comparing the output of two ways of reading
+ * or evaluating the same instances. No network access is needed: links are resolved by a stub, which only resolves
+ * https urls, and the validator only reports the results added to validatorResults.
+ */
+class DataFileCriteria {
+  static final String FIXTURE = "data-file-metadata.json";
+  final ObjectMapper mapper = new ObjectMapper();
+  final TemplateGetter templateGetter = new TemplateGetter();
+  final FieldsCollector fieldsCollector = new FieldsCollector();
+  final LinkChecker linkChecker = new LinkChecker(fieldsCollector) {
+    @Override
+    public boolean isResolvable(String urlString) {
+      return urlString.startsWith("https://");
+    }
+  };
+  final StudyPhsGetter studyPhsGetter = new StudyPhsGetter(null, null);
+  final List<ValidationResult> validatorResults = new ArrayList<>();
+  final InstanceFieldWalker walker;
+  final DataFileAccuracyEvaluator accuracyEvaluator;
+  final DataFileCompletenessEvaluator completenessEvaluator;
+  final DataFileConsistencyEvaluator consistencyEvaluator;
+  final DataFileUniquenessEvaluator uniquenessEvaluator;
+  final DataFileVocabularyEvaluator vocabularyEvaluator;
+  final DataFileLingQualityEvaluator lingQualityEvaluator;
+  final DataFileAccessibilityEvaluator accessibilityEvaluator;
+  final DataFileValidityEvaluator validityEvaluator;
+
+  DataFileCriteria() {
+    ReflectionTestUtils.setField(templateGetter, "dataFileTemplateFileName", "RADxMetadataSpecification.json");
+    ReflectionTestUtils.setField(templateGetter, "dataFileTemplateVersions", "");
+    walker = new InstanceFieldWalker(new ReporterGetter(templateGetter), fieldsCollector);
+    accuracyEvaluator = new DataFileAccuracyEvaluator(null, studyPhsGetter);
+    completenessEvaluator = new DataFileCompletenessEvaluator(new CompletionRateChecker(fieldsCollector), studyPhsGetter, walker);
+    consistencyEvaluator = new DataFileConsistencyEvaluator(studyPhsGetter, null);
+    uniquenessEvaluator = new DataFileUniquenessEvaluator(studyPhsGetter);
+    vocabularyEvaluator = new DataFileVocabularyEvaluator(walker);
+    lingQualityEvaluator = new DataFileLingQualityEvaluator(studyPhsGetter, walker);
+    accessibilityEvaluator = new DataFileAccessibilityEvaluator(linkChecker, studyPhsGetter, walker);
+    validityEvaluator = createValidityEvaluator(new OversizedValueStore());
+  }
+
+  /***
+   * This method wires the data file evaluator over the same criteria, for tests going through its evaluate entry point
+   */
+  DataFileEvaluator createEvaluator(boolean fused) {
+    return createEvaluator(fused, new OversizedValueStore());
+  }
+
+  DataFileEvaluator createEvaluator(boolean fused, OversizedValueStore oversizedValueStore) {
+    var reader = new DataFileMetadataReader(mapper, oversizedValueStore);
+    var evaluator = new DataFileEvaluator(reader, completenessEvaluator, createValidityEvaluator(oversizedValueStore),
+        vocabularyEvaluator, accessibilityEvaluator, consistencyEvaluator, uniquenessEvaluator, accuracyEvaluator,
+        lingQualityEvaluator, walker);
+    ReflectionTestUtils.setField(evaluator, "fused", fused);
+    return evaluator;
+  }
+
+  private DataFileValidityEvaluator createValidityEvaluator(OversizedValueStore oversizedValueStore) {
+    return new DataFileValidityEvaluator(mapper, createValidatorFactory(), templateGetter, studyPhsGetter,
+        oversizedValueStore);
+  }
+
+  private ValidatorFactory createValidatorFactory() {
+    var report = mock(ValidationReport.class);
+    when(report.results()).thenAnswer(invocation -> List.copyOf(validatorResults));
+    var validator = mock(Validator.class);
+    try {
+      when(validator.validateInstance(anyString(), anyString(), any())).thenReturn(report);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    var validatorFactory = mock(ValidatorFactory.class);
+    when(validatorFactory.createValidator(any(), any())).thenReturn(validator);
+    return validatorFactory;
+  }
+
+  /***
+   * This method writes a small corpus based on the fixture: the fixture itself, a copy with an extra space in its
+   * title, and a duplicate of the fixture whose title is the study name
+   */
+  void writeCorpus(Path directory) throws IOException {
+    var fixture = readFixture();
+    mapper.writeValue(directory.resolve("a.json").toFile(), fixture);
+
+    var extraSpace = fixture.deepCopy();
+    setValue(extraSpace, "Data File Identity", "File Name", "rads_0002_example_DATA_origcopy.csv");
+    setTitle(extraSpace, "RADx  example data file of the example study");
+    mapper.writeValue(directory.resolve("b.json").toFile(), extraSpace);
+
+    var duplicate = fixture.deepCopy();
+    setTitle(duplicate, "Example Study");
+    mapper.writeValue(directory.resolve("c.json").toFile(), duplicate);
+  }
+
+  ObjectNode readFixture() throws IOException {
+    return (ObjectNode) mapper.readTree(new ClassPathResource(FIXTURE).getFile());
+  }
+
+  static Map<Path, TemplateInstanceArtifact> artifacts(Map<Path, DataFileRecord> records) {
+    Map<Path, TemplateInstanceArtifact> artifacts = new LinkedHashMap<>();
+    records.forEach((path, record) -> artifacts.put(path, record.artifact()));
+    return artifacts;
+  }
+
+  /***
+   * This method runs every criterion on its own over the instances
+   */
+  Output evaluateAll(Map<Path, TemplateInstanceArtifact> instances) {
+    var output = new Output();
+    for (var criterion : List.<Function<Output, DataFileStage>>of(
+        this::accuracy, this::completeness, this::consistency, this::uniqueness, this::vocabulary,
+        this::lingQuality, this::links)) {
+      DataFileStage.run(criterion.apply(output), instances);
+    }
+    return output;
+  }
+
+  Output evaluate(Function<Output, DataFileStage> criterion, Map<Path, TemplateInstanceArtifact> instances) {
+    var output = new Output();
+    DataFileStage.run(criterion.apply(output), instances);
+    return output;
+  }
+
+  DataFileStage accuracy(Output output) {
+    return accuracyEvaluator.start(Optional.empty(), output::add, output.validationSummary);
+  }
+
+  DataFileStage completeness(Output output) {
+    return completenessEvaluator.start(output::add, output.validationSummary);
+  }
+
+  DataFileStage consistency(Output output) {
+    return consistencyEvaluator.start(Optional.empty(), output::add, output.validationSummary);
+  }
+
+  DataFileStage uniqueness(Output output) {
+    return uniquenessEvaluator.start(output::add, output.validationSummary);
+  }
+
+  DataFileStage vocabulary(Output output) {
+    return vocabularyEvaluator.start(output::add);
+  }
+
+  DataFileStage lingQuality(Output output) {
+    return lingQualityEvaluator.start(output::add, output.validationSummary);
+  }
+
+  DataFileStage links(Output output) {
+    return walker.walk(List.of(accessibilityEvaluator.extractLinks(output.links::add, () -> {})));
+  }
+
+  private void setTitle(ObjectNode instance, String title) {
+    var titles = instance.withArray("Data File Titles");
+    ((ObjectNode) titles.get(0).get("Title")).put("@value", title);
+  }
+
+  private void setValue(ObjectNode instance, String element, String field, String value) {
+    ((ObjectNode) instance.get(element).get(field)).put("@value", value);
+  }
+
+  /***
+   * Evaluation results are kept as text, with sets and maps sorted, so two outputs can be compared with equals
+   */
+  static class Output {
+    final List<String> results = new ArrayList<>();
+    final ValidationSummary<JsonValidationResult> validationSummary = new ValidationSummary<>(new ArrayList<>(), new HashSet<>());
+    final List<DataFileAccessibilityEvaluator.InstanceLinks> links = new ArrayList<>();
+
+    void add(EvaluationResult result) {
+      results.add(result.getEvaluationCriteria() + " " + result.getEvaluationMetric() + " " + normalize(result.getContent()));
+    }
+
+    List<String> results() {
+      return results;
+    }
+
+    /***
+     * Every result gets a random uuid, which is left out of the comparison
+     */
+    List<JsonValidationResult> validationResults() {
+      return validationSummary.getValidationResults().stream()
+          .map(result -> new JsonValidationResult(result.studyPhs(), result.fileName(), result.pointer(),
+              result.issueType(), result.errorMessage(), result.suggestion(), null, result.issueLevel(), result.value()))
+          .toList();
+    }
+
+    Set<String> invalidMetadata() {
+      return new TreeSet<>(validationSummary.getInvalidMetadata());
+    }
+
+    List<DataFileAccessibilityEvaluator.InstanceLinks> links() {
+      return links;
+    }
+
+    private static Object normalize(Object content) {
+      if (content instanceof Set<?> set) {
+        return new TreeSet<>(set);
+      }
+      if (content instanceof Map<?, ?> map) {
+        return new TreeMap<>(map);
+      }
+      return content;
+    }
+  }
+}
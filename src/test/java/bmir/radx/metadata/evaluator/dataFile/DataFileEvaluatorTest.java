@@ -0,0 +1,40 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.EvaluationReport;
+import bmir.radx.metadata.evaluator.result.JsonValidationResult;
+import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataFileEvaluatorTest {
+  private final DataFileCriteria criteria = new DataFileCriteria();
+
+  @Test
+  public void testFieldWalkReplayMatchesSeparateCriteria(@TempDir Path directory) throws IOException {
+    criteria.writeCorpus(directory);
+
+    var separate = toOutput(criteria.createEvaluator(false).evaluate(directory));
+    var fused = toOutput(criteria.createEvaluator(true).evaluate(directory));
+
+    // Every criterion of the field walk reports something for the corpus
+    assertTrue(separate.validationResults().stream()
+        .anyMatch(result -> result.issueType() == IssueTypeMapping.IssueType.LINGUISTIC_QUALITY));
+    assertTrue(separate.results().stream().anyMatch(result -> result.startsWith("COMPLETENESS")));
+    assertTrue(separate.results().stream().anyMatch(result -> result.startsWith("VOCABULARIES")));
+    assertTrue(separate.results().stream().anyMatch(result -> result.startsWith("ACCESSIBILITY")));
+    assertEquals(separate.results(), fused.results());
+    assertEquals(separate.validationResults(), fused.validationResults());
+  }
+
+  private static DataFileCriteria.Output toOutput(EvaluationReport<JsonValidationResult> report) {
+    var output = new DataFileCriteria.Output();
+    report.evaluationResults().forEach(output::add);
+    output.validationSummary.updateValidationResults(report.validationResults());
+    return output;
+  }
+}
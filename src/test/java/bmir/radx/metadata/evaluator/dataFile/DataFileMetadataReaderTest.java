@@ -0,0 +1,182 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static bmir.radx.metadata.evaluator.dataFile.DataFileMetadataReader.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataFileMetadataReaderTest {
+  private final DataFileCriteria criteria = new DataFileCriteria();
+  private final DataFileMetadataReader reader = new DataFileMetadataReader(new ObjectMapper(), new OversizedValueStore());
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private final Logger logger = (Logger) LoggerFactory.getLogger(DataFileMetadataReader.class);
+  // Not sorted by name, with a nested entry and an entry which is not JSON
+  private static final List<String> ARCHIVE_ENTRIES = List.of("z/b.json", "a.json", "readme.txt", "nested/dir/c.json");
+  private String instance;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    // Several threads, so ranges are parsed out of order and put back in line order
+    ReflectionTestUtils.setField(reader, "parallelism", 4);
+    instance = criteria.mapper.writeValueAsString(criteria.readFixture());
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    logger.detachAppender(appender);
+  }
+
+  @Test
+  public void testSplitIntoLineRanges(@TempDir Path directory) throws IOException {
+    var file = directory.resolve("lines.ndjson");
+    Files.writeString(file, "one\r\ntwo\r\nthree");
+
+    try (var channel = FileChannel.open(file)) {
+      assertEquals(List.of(new LineRange(0, 5), new LineRange(5, 10), new LineRange(10, 15)),
+          splitIntoLineRanges(channel, 1));
+      assertEquals(List.of(new LineRange(0, 10), new LineRange(10, 15)), splitIntoLineRanges(channel, 6));
+      assertEquals(List.of(new LineRange(0, 15)), splitIntoLineRanges(channel, 15));
+    }
+  }
+
+  @Test
+  public void testLineCrossingTheRangeBoundaryIsReadOnce(@TempDir Path directory) throws IOException {
+    // The first line is longer than a range, so the first range ends inside it and is extended to its end
+    var padding = "x".repeat(NDJSON_RANGE_SIZE);
+    var file = directory.resolve("metadata.ndjson");
+    Files.writeString(file, "{\"" + NDJSON_FILE_NAME_FIELD + "\":\"a.json\",\"padding\":\"" + padding + "\","
+        + "\"" + NDJSON_INSTANCE_FIELD + "\":" + instance + "}\n"
+        + line("b.json") + "\n"
+        + line("c.json") + "\n");
+    assertTrue(Files.size(file) > NDJSON_RANGE_SIZE);
+
+    assertRecords(file, "a.json", "b.json", "c.json");
+  }
+
+  @Test
+  public void testCrlfLinesAndLastLineWithoutLineBreak(@TempDir Path directory) throws IOException {
+    var file = directory.resolve("metadata.ndjson");
+    Files.writeString(file, line("a.json") + "\r\n" + line("b.json") + "\r\n\r\n" + line("c.json"));
+
+    assertRecords(file, "a.json", "b.json", "c.json");
+  }
+
+  @Test
+  public void testFileNameAfterInstance(@TempDir Path directory) throws IOException {
+    var file = directory.resolve("metadata.ndjson");
+    Files.writeString(file, "{\"" + NDJSON_INSTANCE_FIELD + "\":" + instance + ",\""
+        + NDJSON_FILE_NAME_FIELD + "\":\"a.json\"}\n" + line("b.json") + "\n");
+
+    assertRecords(file, "a.json", "b.json");
+  }
+
+  @Test
+  public void testUnsortedLinesAreWarnedOncePerFile(@TempDir Path directory) throws IOException {
+    var content = new StringBuilder();
+    for (var fileName : List.of("c.json", "a.json", "e.json", "b.json", "d.json")) {
+      content.append(line(fileName)).append("\n");
+    }
+    var file = directory.resolve("metadata.ndjson");
+    Files.writeString(file, content);
+
+    assertRecords(file, "c.json", "a.json", "e.json", "b.json", "d.json");
+    var warnings = appender.list.stream().filter(event -> event.getLevel() == Level.WARN).toList();
+    assertEquals(1, warnings.size());
+    assertTrue(warnings.get(0).getFormattedMessage().contains("a.json"));
+  }
+
+  @Test
+  public void testZipEntriesAreReadInNameOrder(@TempDir Path directory) throws IOException {
+    var archive = directory.resolve("metadata.zip");
+    try (var zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+      zip.putNextEntry(new ZipEntry("nested/"));
+      zip.closeEntry();
+      for (var entryName : ARCHIVE_ENTRIES) {
+        zip.putNextEntry(new ZipEntry(entryName));
+        zip.write(entryContent(entryName));
+        zip.closeEntry();
+      }
+    }
+
+    assertArchiveRecords(archive, "a.json", "nested/dir/c.json", "z/b.json");
+  }
+
+  @Test
+  public void testTarGzEntriesAreReadInNameOrder(@TempDir Path directory) throws IOException {
+    var archive = directory.resolve("metadata.tar.gz");
+    try (var tar = new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+      tar.putArchiveEntry(new TarArchiveEntry("nested/"));
+      tar.closeArchiveEntry();
+      for (var entryName : ARCHIVE_ENTRIES) {
+        var content = entryContent(entryName);
+        var entry = new TarArchiveEntry(entryName);
+        entry.setSize(content.length);
+        tar.putArchiveEntry(entry);
+        tar.write(content);
+        tar.closeArchiveEntry();
+      }
+    }
+
+    assertArchiveRecords(archive, "a.json", "nested/dir/c.json", "z/b.json");
+  }
+
+  @Test
+  public void testUnreadableArchiveKeepsTheCause(@TempDir Path directory) throws IOException {
+    for (var fileName : List.of("metadata.zip", "metadata.tar.gz")) {
+      var archive = Files.writeString(directory.resolve(fileName), "Not an archive");
+
+      var exception = assertThrows(RuntimeException.class, () -> reader.readDataFileRecords(archive));
+      assertTrue(exception.getMessage().startsWith("Error read archive " + archive));
+      assertInstanceOf(IOException.class, exception.getCause());
+    }
+  }
+
+  private byte[] entryContent(String entryName) {
+    return (entryName.endsWith(".json") ? instance : "Not data file metadata").getBytes(StandardCharsets.UTF_8);
+  }
+
+  /***
+   * Only the JSON entries are read, each with a path under the archive which does not exist on disk
+   */
+  private void assertArchiveRecords(Path archive, String... entryNames) {
+    assertRecords(archive, entryNames);
+    reader.readDataFileRecords(archive).keySet().forEach(path -> assertFalse(Files.exists(path)));
+  }
+
+  private String line(String fileName) {
+    return "{\"" + NDJSON_FILE_NAME_FIELD + "\":\"" + fileName + "\",\"" + NDJSON_INSTANCE_FIELD + "\":" + instance + "}";
+  }
+
+  /***
+   * Every instance is read once, in the given order, with its exact bytes
+   */
+  private void assertRecords(Path file, String... names) {
+    var records = reader.readDataFileRecords(file);
+    assertEquals(List.of(names).stream().map(file::resolve).toList(), List.copyOf(records.keySet()));
+    records.values().forEach(record -> assertEquals(instance, record.contentAsString()));
+  }
+}
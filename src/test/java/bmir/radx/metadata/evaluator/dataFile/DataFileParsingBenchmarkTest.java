@@ -0,0 +1,95 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.util.SymbolTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+import org.metadatacenter.artifacts.model.reader.JsonArtifactReader;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/***
+ * Compares allocation and throughput of parsing data file metadata from a String against parsing the raw bytes,
+ * and the heap retained by the parsed instances with and without interning their strings.
+ * Run with -Dbenchmark.dataFile.dir=/path/to/data/file/metadata, it is skipped otherwise.
+ */
+@EnabledIfSystemProperty(named = "benchmark.dataFile.dir", matches = ".+")
+public class DataFileParsingBenchmarkTest {
+  private static final int ROUNDS = 5;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  public void compareStringAndByteParsing() throws IOException {
+    var files = getDataFiles();
+    for (int round = 0; round < ROUNDS; round++) {
+      measure("string", files, file -> mapper.readTree(Files.readString(file)));
+      measure("bytes", files, file -> mapper.readTree(DataFileMetadataReader.readBytes(file)));
+    }
+  }
+
+  @Test
+  public void compareRetainedHeapWithAndWithoutInterning() throws IOException {
+    var files = getDataFiles();
+    measureRetainedHeap("plain", files, false);
+    measureRetainedHeap("intern", files, true);
+  }
+
+  private void measureRetainedHeap(String name, List<Path> files, boolean intern) throws IOException {
+    var artifactReader = new JsonArtifactReader();
+    long usedBefore = getUsedHeapAfterGc();
+    List<TemplateInstanceArtifact> instances = new ArrayList<>();
+    for (var file : files) {
+      var instanceNode = (ObjectNode) mapper.readTree(DataFileMetadataReader.readBytes(file));
+      if (intern) {
+        SymbolTable.internTextValues(instanceNode);
+      }
+      instances.add(artifactReader.readTemplateInstanceArtifact(instanceNode));
+    }
+    long retained = getUsedHeapAfterGc() - usedBefore;
+    System.out.printf("%-6s %8d retained bytes/instance%n", name, retained / instances.size());
+  }
+
+  private static long getUsedHeapAfterGc() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static List<Path> getDataFiles() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Path.of(System.getProperty("benchmark.dataFile.dir")))) {
+      files = paths.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+    }
+    assertFalse(files.isEmpty(), "No data file metadata found");
+    return files;
+  }
+
+  private void measure(String name, List<Path> files, Parser parser) throws IOException {
+    var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    for (var file : files) {
+      parser.parse(file);
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    System.out.printf("%-6s %8d bytes/file %10.1f files/s%n",
+        name, allocated / files.size(), files.size() / (elapsed / 1e9));
+  }
+
+  private interface Parser {
+    void parse(Path file) throws IOException;
+  }
+}
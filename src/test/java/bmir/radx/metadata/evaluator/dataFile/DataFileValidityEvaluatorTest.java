@@ -0,0 +1,92 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.result.EvaluationResult;
+import bmir.radx.metadata.evaluator.result.JsonValidationResult;
+import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidationReport;
+import edu.stanford.bmir.radx.metadata.validator.lib.Validator;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static bmir.radx.metadata.evaluator.EvaluationMetric.VALIDATION_PASS_RATE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DataFileValidityEvaluatorTest {
+  private final DataFileCriteria criteria = new DataFileCriteria();
+  private final DataFileMetadataReader reader = new DataFileMetadataReader(criteria.mapper, new OversizedValueStore());
+  private final List<String> validatedInstances = new ArrayList<>();
+  private DataFileValidityEvaluator validityEvaluator;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    // The validator records the instance text it is given and reports no errors
+    var report = mock(ValidationReport.class);
+    when(report.results()).thenReturn(List.of());
+    var validator = mock(Validator.class);
+    when(validator.validateInstance(anyString(), anyString(), any())).thenAnswer(invocation -> {
+      validatedInstances.add(invocation.getArgument(1));
+      return report;
+    });
+    var validatorFactory = mock(ValidatorFactory.class);
+    when(validatorFactory.createValidator(any(), any())).thenReturn(validator);
+    validityEvaluator = new DataFileValidityEvaluator(new ObjectMapper(), validatorFactory, criteria.templateGetter,
+        criteria.studyPhsGetter, new OversizedValueStore());
+  }
+
+  @Test
+  public void testArchiveEntriesAreValidatedFromTheirRecords(@TempDir Path directory) throws IOException {
+    var archive = writeArchive(directory);
+    var records = reader.readDataFileRecords(archive);
+    List<EvaluationResult> results = new ArrayList<>();
+
+    validityEvaluator.evaluate(records.values(), results::add, createValidationSummary());
+
+    var instance = criteria.mapper.writeValueAsString(criteria.readFixture());
+    assertEquals(List.of(instance, instance), validatedInstances);
+    assertTrue(results.stream().anyMatch(result ->
+        result.getEvaluationMetric() == VALIDATION_PASS_RATE && result.getContent().equals(100.0)));
+  }
+
+  @Test
+  public void testArchiveEntriesWithoutTheirTextAreRejected(@TempDir Path directory) throws IOException {
+    var archive = writeArchive(directory);
+    var artifacts = reader.readDataFileMetadata(archive);
+
+    var exception = assertThrows(IllegalArgumentException.class, () ->
+        validityEvaluator.evaluate(artifacts, result -> {}, createValidationSummary()));
+    assertTrue(exception.getMessage().contains(archive.resolve("a.json").toString()));
+    assertTrue(validatedInstances.isEmpty());
+  }
+
+  private Path writeArchive(Path directory) throws IOException {
+    var content = criteria.mapper.writeValueAsBytes(criteria.readFixture());
+    var archive = directory.resolve("metadata.zip");
+    try (var zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+      for (var entryName : List.of("a.json", "nested/b.json")) {
+        zip.putNextEntry(new ZipEntry(entryName));
+        zip.write(content);
+        zip.closeEntry();
+      }
+    }
+    return archive;
+  }
+
+  private static ValidationSummary<JsonValidationResult> createValidationSummary() {
+    return new ValidationSummary<>(new ArrayList<>(), new HashSet<>());
+  }
+}
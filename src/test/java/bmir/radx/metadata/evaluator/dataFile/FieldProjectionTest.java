@@ -0,0 +1,74 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.util.InstanceArtifactPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static bmir.radx.metadata.evaluator.dataFile.DataFileCriteria.artifacts;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FieldProjectionTest {
+  private final DataFileCriteria criteria = new DataFileCriteria();
+  private final DataFileMetadataReader reader = new DataFileMetadataReader(criteria.mapper, new OversizedValueStore());
+  @TempDir
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    ReflectionTestUtils.setField(reader, "parallelism", 1);
+    criteria.writeCorpus(directory);
+  }
+
+  @Test
+  public void testAccuracyReadsOnlyItsProjection() {
+    assertProjectedReadIsEquivalent(criteria::accuracy, criteria.accuracyEvaluator.getFieldProjection());
+  }
+
+  @Test
+  public void testConsistencyReadsOnlyItsProjection() {
+    assertProjectedReadIsEquivalent(criteria::consistency, criteria.consistencyEvaluator.getFieldProjection(Optional.empty()));
+  }
+
+  @Test
+  public void testUniquenessReadsOnlyItsProjection() {
+    assertProjectedReadIsEquivalent(criteria::uniqueness, criteria.uniquenessEvaluator.getFieldProjection());
+  }
+
+  @Test
+  public void testFieldMissingFromTheProjectionFails() {
+    // Only the parent studies, which every criterion reads for the study phs
+    var projection = FieldProjection.of(InstanceArtifactPath.STUDY_PHS_PATH.getPath());
+    var instances = artifacts(reader.readDataFileRecords(directory, projection));
+
+    var exception = assertThrows(IllegalStateException.class, () -> criteria.evaluate(criteria::accuracy, instances));
+    assertTrue(exception.getMessage().startsWith("Data File Titles was not read"));
+    assertThrows(IllegalStateException.class, () -> criteria.evaluate(criteria::uniqueness, instances));
+    assertThrows(IllegalStateException.class, () -> criteria.evaluate(criteria::consistency, instances));
+  }
+
+  @Test
+  public void testFullReadIsNotChecked() {
+    var instances = artifacts(reader.readDataFileRecords(directory));
+
+    assertDoesNotThrow(() -> criteria.evaluateAll(instances));
+  }
+
+  private void assertProjectedReadIsEquivalent(Function<DataFileCriteria.Output, DataFileStage> criterion,
+                                               FieldProjection projection) {
+    assertFalse(projection.includesAll());
+    var full = criteria.evaluate(criterion, artifacts(reader.readDataFileRecords(directory)));
+    var projected = criteria.evaluate(criterion, artifacts(reader.readDataFileRecords(directory, projection)));
+
+    assertFalse(full.results().isEmpty());
+    assertEquals(full.results(), projected.results());
+    assertEquals(full.validationResults(), projected.validationResults());
+    assertEquals(full.invalidMetadata(), projected.invalidMetadata());
+  }
+}
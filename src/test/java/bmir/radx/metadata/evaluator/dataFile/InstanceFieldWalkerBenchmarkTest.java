@@ -0,0 +1,59 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.EvaluationReport;
+import bmir.radx.metadata.evaluator.result.JsonValidationResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/***
+ * Compares DataFileEvaluator.evaluate with data.file.evaluation.fused=false, where completeness, vocabularies,
+ * linguistic quality and accessibility each walk the field values of every instance, against the single walk
+ * shared by these criteria. Only these criteria are evaluated, and both arms include reading the folder.
+ * Links are resolved by the stub of DataFileCriteria, so no network access is measured.
+ * Run with -Dbenchmark.dataFile.dir=/path/to/data/file/metadata, it is skipped otherwise.
+ */
+@EnabledIfSystemProperty(named = "benchmark.dataFile.dir", matches = ".+")
+public class InstanceFieldWalkerBenchmarkTest {
+  private static final int ROUNDS = 5;
+  private static final String FIELD_WALK_CRITERIA = "completeness,vocabularies,linguistic_quality,accessibility";
+  private final DataFileCriteria criteria = new DataFileCriteria();
+
+  @Test
+  public void compareSeparateAndFusedWalks() {
+    var directory = Path.of(System.getProperty("benchmark.dataFile.dir"));
+    var separateEvaluator = createEvaluator(false);
+    var fusedEvaluator = createEvaluator(true);
+
+    // The first round also warms up the JIT and the template caches
+    for (int round = 0; round < ROUNDS; round++) {
+      var separate = measure("separate", () -> separateEvaluator.evaluate(directory));
+      var fused = measure("fused", () -> fusedEvaluator.evaluate(directory));
+
+      assertEquals(separate.evaluationResults().size(), fused.evaluationResults().size());
+      assertEquals(separate.validationResults().size(), fused.validationResults().size());
+    }
+  }
+
+  private DataFileEvaluator createEvaluator(boolean fused) {
+    var evaluator = criteria.createEvaluator(fused);
+    ReflectionTestUtils.setField(evaluator, "criteria", FIELD_WALK_CRITERIA);
+    return evaluator;
+  }
+
+  private EvaluationReport<JsonValidationResult> measure(String name, Evaluation evaluation) {
+    long start = System.nanoTime();
+    var report = evaluation.run();
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("%-8s %10.1f ms%n", name, elapsed / 1e6);
+    return report;
+  }
+
+  private interface Evaluation {
+    EvaluationReport<JsonValidationResult> run();
+  }
+}
@@ -0,0 +1,123 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import bmir.radx.metadata.evaluator.EvaluationReport;
+import bmir.radx.metadata.evaluator.result.JsonValidationResult;
+import bmir.radx.metadata.evaluator.util.InstanceArtifactPath;
+import bmir.radx.metadata.evaluator.util.InstanceArtifactValueGetter;
+import bmir.radx.metadata.evaluator.util.InstanceView;
+import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidationLevel;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidationName;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidationResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OversizedValueStoreTest {
+  // Shorter than the HTML table and than several descriptive values of the fixture
+  private static final int THRESHOLD = 32;
+  private static final String DESCRIPTION_PATH = "/Data File Descriptions[0]/Description";
+  private final DataFileCriteria criteria = new DataFileCriteria();
+  private final OversizedValueStore spilling = createStore(THRESHOLD);
+  private final OversizedValueStore disabled = createStore(0);
+
+  @AfterEach
+  void tearDown() throws IOException {
+    spilling.close();
+  }
+
+  @Test
+  public void testCriteriaOutputIsUnchangedWhenSpilling(@TempDir Path directory) throws IOException {
+    criteria.writeCorpus(directory);
+
+    var expected = criteria.evaluateAll(readArtifacts(directory, disabled));
+    var actual = criteria.evaluateAll(readArtifacts(directory, spilling));
+
+    // The extra space is in a title longer than the threshold, which is only reported when it is not spilled
+    assertTrue(expected.validationResults().stream()
+        .anyMatch(result -> result.issueType() == IssueTypeMapping.IssueType.LINGUISTIC_QUALITY));
+    assertEquals(expected.results(), actual.results());
+    assertEquals(expected.validationResults(), actual.validationResults());
+    assertEquals(expected.invalidMetadata(), actual.invalidMetadata());
+    assertEquals(expected.links(), actual.links());
+  }
+
+  @Test
+  public void testOnlyDataCharacteristicsTableIsSpilled(@TempDir Path directory) throws IOException {
+    criteria.writeCorpus(directory);
+    var path = directory.resolve("a.json");
+
+    var original = readArtifacts(directory, disabled).get(path);
+    var spilled = readArtifacts(directory, spilling).get(path);
+
+    var table = InstanceArtifactValueGetter.getDataCharSummary(original);
+    var placeholder = InstanceArtifactValueGetter.getDataCharSummary(spilled);
+    assertTrue(table.length() > THRESHOLD);
+    assertNotEquals(table, placeholder);
+    assertEquals(table, spilling.resolve(placeholder));
+
+    var description = InstanceView.of(original).getValue(DESCRIPTION_PATH).jsonLdValue();
+    assertTrue(description.orElseThrow().length() > THRESHOLD);
+    assertEquals(description, InstanceView.of(spilled).getValue(DESCRIPTION_PATH).jsonLdValue());
+  }
+
+  @Test
+  public void testPlaceholderDoesNotLeakIntoTheReport(@TempDir Path directory) throws Exception {
+    criteria.writeCorpus(directory);
+    // The validator flags the table, so validity looks up the value of the spilled field
+    var tableError = mock(ValidationResult.class);
+    when(tableError.validationLevel()).thenReturn(ValidationLevel.ERROR);
+    when(tableError.validationName()).thenReturn(ValidationName.JSON_VALIDATION);
+    when(tableError.pointer()).thenReturn("#" + InstanceArtifactPath.DATA_CHAR_SUMMARY_PATH.getPath());
+    when(tableError.message()).thenReturn("Invalid table");
+    criteria.validatorResults.add(tableError);
+
+    var expected = criteria.createEvaluator(true, disabled).evaluate(directory);
+    var actual = criteria.createEvaluator(true, spilling).evaluate(directory);
+
+    assertEquals(3, actual.validationResults().stream()
+        .filter(result -> result.issueType() == IssueTypeMapping.IssueType.VALIDITY)
+        .count());
+    for (var result : actual.validationResults()) {
+      for (var component : JsonValidationResult.class.getRecordComponents()) {
+        var value = String.valueOf(component.getAccessor().invoke(result));
+        assertFalse(value.contains(OversizedValueStore.PLACEHOLDER_PREFIX), component.getName() + " of " + result);
+      }
+    }
+    for (var result : actual.evaluationResults()) {
+      assertFalse(String.valueOf(result.getContent()).contains(OversizedValueStore.PLACEHOLDER_PREFIX));
+    }
+    assertEquals(toOutput(expected).results(), toOutput(actual).results());
+    assertEquals(toOutput(expected).validationResults(), toOutput(actual).validationResults());
+  }
+
+  private Map<Path, TemplateInstanceArtifact> readArtifacts(Path directory, OversizedValueStore store) {
+    var reader = new DataFileMetadataReader(new ObjectMapper(), store);
+    ReflectionTestUtils.setField(reader, "parallelism", 1);
+    return reader.readDataFileMetadata(directory);
+  }
+
+  private static DataFileCriteria.Output toOutput(EvaluationReport<JsonValidationResult> report) {
+    var output = new DataFileCriteria.Output();
+    report.evaluationResults().forEach(output::add);
+    output.validationSummary.updateValidationResults(report.validationResults());
+    return output;
+  }
+
+  private static OversizedValueStore createStore(int threshold) {
+    var store = new OversizedValueStore();
+    ReflectionTestUtils.setField(store, "threshold", threshold);
+    return store;
+  }
+}
@@ -0,0 +1,38 @@
+package bmir.radx.metadata.evaluator.dataFile;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+import org.metadatacenter.artifacts.model.reader.JsonArtifactReader;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TypedInstancesTest {
+  private final DataFileCriteria criteria = new DataFileCriteria();
+
+  @Test
+  public void testRecordIsBoundOncePerInstance() throws IOException {
+    var instance = readInstance(criteria.readFixture());
+    var other = readInstance(criteria.readFixture());
+
+    var metadata = TypedInstances.get(instance).orElseThrow();
+
+    assertSame(metadata, TypedInstances.get(instance).orElseThrow());
+    assertNotSame(metadata, TypedInstances.get(other).orElseThrow());
+    assertEquals(metadata, TypedInstances.get(other).orElseThrow());
+  }
+
+  @Test
+  public void testOtherTemplateVersionHasNoRecord() throws IOException {
+    var fixture = criteria.readFixture();
+    fixture.put("schema:isBasedOn", "https://repo.metadatacenter.org/templates/other-version");
+
+    assertTrue(TypedInstances.get(readInstance(fixture)).isEmpty());
+  }
+
+  private static TemplateInstanceArtifact readInstance(ObjectNode instanceNode) {
+    return new JsonArtifactReader().readTemplateInstanceArtifact(instanceNode);
+  }
+}
@@ -0,0 +1,77 @@
+package bmir.radx.metadata.evaluator.result;
+
+import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConcurrentValidationSummaryTest {
+  private static final int THREADS = 8;
+  private static final int FILES_PER_THREAD = 1000;
+
+  @Test
+  public void testResultsAddedByManyThreadsAreCountedPerCall() throws Exception {
+    var validationSummary = new ConcurrentValidationSummary<JsonValidationResult>(Set.of("seeded.json"));
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int thread = 0; thread < THREADS; thread++) {
+        int threadId = thread;
+        futures.add(executor.submit(() -> {
+          int invalidFiles = 0;
+          for (int file = 0; file < FILES_PER_THREAD; file++) {
+            var fileName = threadId + "-" + file + ".json";
+            int resultCount = file % 3;
+            int errors = validationSummary.countValidationResults(() -> {
+              for (int i = 0; i < resultCount; i++) {
+                validationSummary.updateValidationResult(getResult(fileName));
+              }
+            });
+            assertEquals(resultCount, errors);
+            if (errors > 0) {
+              validationSummary.addInvalidMetadata(fileName);
+              invalidFiles++;
+            }
+          }
+          return invalidFiles;
+        }));
+      }
+      int invalidFiles = 0;
+      for (var future : futures) {
+        invalidFiles += future.get();
+      }
+
+      int resultsPerThread = 0;
+      for (int file = 0; file < FILES_PER_THREAD; file++) {
+        resultsPerThread += file % 3;
+      }
+      assertEquals(THREADS * resultsPerThread, validationSummary.getValidationResults().size());
+      assertEquals(invalidFiles + 1, validationSummary.getInvalidMetadata().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testResultsOfOneThreadKeepTheirOrder() {
+    var validationSummary = new ConcurrentValidationSummary<JsonValidationResult>(new HashSet<>());
+    validationSummary.updateValidationResult(getResult("a.json"));
+    validationSummary.updateValidationResults(List.of(getResult("b.json"), getResult("c.json")));
+
+    assertEquals(List.of("a.json", "b.json", "c.json"),
+        validationSummary.getValidationResults().stream().map(JsonValidationResult::fileName).toList());
+  }
+
+  private static JsonValidationResult getResult(String fileName) {
+    return new JsonValidationResult("phs000001", fileName, "", IssueTypeMapping.IssueType.CONSISTENCY,
+        "Inconsistent value", null, null);
+  }
+}
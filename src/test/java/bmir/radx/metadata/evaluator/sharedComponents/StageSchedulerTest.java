@@ -0,0 +1,63 @@
+package bmir.radx.metadata.evaluator.sharedComponents;
+
+import bmir.radx.metadata.evaluator.result.EvaluationResult;
+import bmir.radx.metadata.evaluator.result.JsonValidationResult;
+import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import bmir.radx.metadata.evaluator.util.IssueTypeMapping;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static bmir.radx.metadata.evaluator.EvaluationCriterion.VALIDITY;
+import static bmir.radx.metadata.evaluator.EvaluationMetric.NUMBER_OF_INVALID_RECORDS;
+import static bmir.radx.metadata.evaluator.sharedComponents.StageScheduler.Pool.CPU;
+import static bmir.radx.metadata.evaluator.sharedComponents.StageScheduler.Pool.IO;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StageSchedulerTest {
+  @Test
+  public void testStagesAreMergedInOrderOfAdding() {
+    for (int parallelism : new int[]{1, 4}) {
+      var scheduler = new StageScheduler<JsonValidationResult>(LoggerFactory.getLogger(StageSchedulerTest.class), parallelism);
+      scheduler.add("slow", IO, (consumer, validationSummary) -> {
+        sleep(100);
+        validationSummary.updateValidationResult(getResult("slow.json"));
+        validationSummary.addInvalidMetadata("slow.json");
+      });
+      scheduler.add("fast", CPU, (consumer, validationSummary) -> {
+        validationSummary.updateValidationResult(getResult("fast.json"));
+        validationSummary.addInvalidMetadata("fast.json");
+      });
+      scheduler.add("count", CPU, (consumer, validationSummary) ->
+          consumer.accept(new EvaluationResult(VALIDITY, NUMBER_OF_INVALID_RECORDS, validationSummary.getInvalidMetadata().size())),
+          "slow", "fast", "not added");
+
+      var results = new ArrayList<EvaluationResult>();
+      var validationSummary = new ValidationSummary<JsonValidationResult>(new ArrayList<>(), new HashSet<>());
+      scheduler.run(results::add, validationSummary);
+
+      assertEquals(List.of("slow.json", "fast.json"),
+          validationSummary.getValidationResults().stream().map(JsonValidationResult::fileName).toList());
+      assertEquals(Set.of("slow.json", "fast.json"), validationSummary.getInvalidMetadata());
+      assertEquals(1, results.size());
+      assertEquals(2, (int) results.get(0).getContentAsInteger());
+    }
+  }
+
+  private static JsonValidationResult getResult(String fileName) {
+    return new JsonValidationResult("phs000001", fileName, "", IssueTypeMapping.IssueType.CONSISTENCY,
+        "Inconsistent value", null, null);
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package bmir.radx.metadata.evaluator.study;
+
+import bmir.radx.metadata.evaluator.SpreadsheetSession;
+import bmir.radx.metadata.evaluator.StreamingSpreadsheetReader;
+import bmir.radx.metadata.evaluator.result.SpreadsheetValidationResult;
+import bmir.radx.metadata.evaluator.result.ValidationSummary;
+import bmir.radx.metadata.evaluator.util.SpreadsheetUpdater;
+import bmir.radx.metadata.evaluator.util.TemplateGetter;
+import edu.stanford.bmir.radx.metadata.validator.lib.Validator;
+import edu.stanford.bmir.radx.metadata.validator.lib.ValidatorFactory;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class StudyValidityEvaluatorTest {
+  // Study metadata with the template field names as headers, exported to CSV by the test
+  private static final String FIXTURE = "study-metadata-template.xlsx";
+  private final StreamingSpreadsheetReader spreadsheetReader = new StreamingSpreadsheetReader();
+  private final List<List<String>> validatedSheets = new ArrayList<>();
+  private StudyValidityEvaluator studyValidityEvaluator;
+
+  @BeforeEach
+  public void setUp(){
+    // The validator records the first sheet of every spreadsheet it is given
+    var validator = mock(Validator.class);
+    when(validator.validateSpreadsheet(anyString())).thenAnswer(invocation -> {
+      validatedSheets.add(describeFirstSheet(Path.of(invocation.<String>getArgument(0))));
+      return null;
+    });
+    var validatorFactory = mock(ValidatorFactory.class);
+    when(validatorFactory.createValidator(any(), any())).thenReturn(validator);
+
+    // The test resources shadow the bundled study template with an older one, whose field names differ
+    var templateGetter = new TemplateGetter();
+    ReflectionTestUtils.setField(templateGetter, "studyTemplateFileName", "src/main/resources/StudyTemplate.json");
+    studyValidityEvaluator = new StudyValidityEvaluator(new SpreadsheetUpdater(), validatorFactory,
+        new SpreadsheetSession(spreadsheetReader), templateGetter);
+    ReflectionTestUtils.setField(studyValidityEvaluator, "templateID", "https://repo.metadatacenter.org/templates/af3f6a0d-9f9f-4db2-898d-0a19d2dd0bb6");
+    ReflectionTestUtils.setField(studyValidityEvaluator, "templateTitle", "Study template");
+    ReflectionTestUtils.setField(studyValidityEvaluator, "templateVersion", "0.0.1");
+    ReflectionTestUtils.setField(studyValidityEvaluator, "templateCreatedOn", "2025-01-23T10:34:38-08:00");
+  }
+
+  @Test
+  public void testCsvExportIsValidatedLikeTheWorkbook(@TempDir Path directory) throws IOException {
+    var workbookPath = directory.resolve("study-metadata.xlsx");
+    Files.copy(new ClassPathResource(FIXTURE).getFile().toPath(), workbookPath);
+    var csvPath = directory.resolve("study-metadata.csv");
+    exportToCsv(workbookPath, csvPath);
+
+    var workbookRows = spreadsheetReader.readStudyMetadata(workbookPath);
+    var csvRows = spreadsheetReader.readStudyMetadata(csvPath);
+    assertEquals(workbookRows, csvRows);
+
+    studyValidityEvaluator.evaluate(workbookPath, workbookRows, result -> {}, createValidationSummary());
+    studyValidityEvaluator.evaluate(csvPath, csvRows, result -> {}, createValidationSummary());
+
+    assertEquals(2, validatedSheets.size());
+    var workbookSheet = validatedSheets.get(0);
+    var csvSheet = validatedSheets.get(1);
+    // Grant numbers made only of digits are text, sample sizes are numbers and dates are dates
+    assertTrue(workbookSheet.contains("F3 STRING 20200001"));
+    assertTrue(workbookSheet.stream().anyMatch(cell -> cell.startsWith("AA2 NUMERIC")));
+    assertTrue(workbookSheet.stream().anyMatch(cell -> cell.startsWith("H2 DATE")));
+    assertEquals(workbookSheet, csvSheet);
+  }
+
+  /***
+   * Writes the first sheet like Excel saves a workbook as CSV in the en-US locale, where the short date format
+   * is shown as 5/31/2021 and whole numbers without decimals
+   */
+  private static void exportToCsv(Path workbookPath, Path csvPath) throws IOException {
+    var dataFormatter = new DataFormatter();
+    var dateFormat = new SimpleDateFormat("M/d/yyyy");
+    try (var workbook = WorkbookFactory.create(workbookPath.toFile(), null, true);
+         var printer = new CSVPrinter(Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8), CSVFormat.DEFAULT)) {
+      var sheet = workbook.getSheetAt(0);
+      int columns = sheet.getRow(0).getLastCellNum();
+      for (var row : sheet) {
+        List<String> values = new ArrayList<>();
+        for (int column = 0; column < columns; column++) {
+          var cell = row.getCell(column);
+          if (cell == null) {
+            values.add("");
+          } else if (cell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(cell)) {
+            values.add(dateFormat.format(cell.getDateCellValue()));
+          } else {
+            values.add(dataFormatter.formatCellValue(cell));
+          }
+        }
+        printer.printRecord(values);
+      }
+    }
+  }
+
+  /***
+   * Every non-blank cell of the first sheet as its reference, type and value
+   */
+  private static List<String> describeFirstSheet(Path spreadsheetPath) throws IOException {
+    List<String> cells = new ArrayList<>();
+    try (var workbook = WorkbookFactory.create(spreadsheetPath.toFile(), null, true)) {
+      for (var row : workbook.getSheetAt(0)) {
+        for (var cell : row) {
+          var reference = cell.getAddress().formatAsString();
+          switch (cell.getCellType()) {
+            case NUMERIC -> cells.add(DateUtil.isCellDateFormatted(cell)
+                ? reference + " DATE " + cell.getDateCellValue().getTime()
+                : reference + " NUMERIC " + cell.getNumericCellValue());
+            case STRING -> cells.add(reference + " STRING " + cell.getStringCellValue());
+            case BLANK -> { }
+            default -> cells.add(reference + " " + cell.getCellType() + " " + cell);
+          }
+        }
+      }
+    }
+    return cells;
+  }
+
+  private static ValidationSummary<SpreadsheetValidationResult> createValidationSummary(){
+    return new ValidationSummary<>(new ArrayList<>(), new HashSet<>());
+  }
+}
@@ -0,0 +1,50 @@
+package bmir.radx.metadata.evaluator.util;
+
+import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import static bmir.radx.metadata.evaluator.util.ReferenceDataIndexGenerator.CODE_LIST_INDEX;
+import static bmir.radx.metadata.evaluator.util.ReferenceDataIndexGenerator.INDEX_DIRECTORY;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class ReferenceDataIndexTest {
+  private static final String CODE_LIST_FILE_NAME = "RADxStudyCodeList.xlsx";
+  private static final String NEW_CODE_LISTS_SHEET_NAME = "New Code-List";
+  private final SpreadsheetReader spreadsheetReader = new SpreadsheetReader();
+  private ReferenceDataIndex referenceDataIndex;
+
+  @BeforeEach
+  public void setUp() {
+    // The index is generated by the Maven build, in the process-classes phase
+    assumeTrue(getClass().getClassLoader().getResource(INDEX_DIRECTORY + "/" + CODE_LIST_INDEX) != null,
+        "The reference data index was not generated");
+    ReflectionTestUtils.setField(spreadsheetReader, "radxCodeListFileName", CODE_LIST_FILE_NAME);
+    referenceDataIndex = new ReferenceDataIndex(new ObjectMapper(), spreadsheetReader);
+  }
+
+  @Test
+  public void testEveryPopulatedColumnIsIndexed() throws IOException {
+    try (var inputStream = getClass().getClassLoader().getResourceAsStream(CODE_LIST_FILE_NAME)) {
+      var codeLists = spreadsheetReader.readAllCodeListValues(inputStream);
+      codeLists.forEach((sheetName, columns) -> columns.forEach((column, values) -> {
+        // Rows without a known study field are left out of the index
+        var expected = new HashMap<>(values);
+        expected.remove(null);
+        assertEquals(expected, referenceDataIndex.getCodeListValues(sheetName, column), sheetName + " column " + column);
+      }));
+    }
+  }
+
+  @Test
+  public void testUnindexedColumnIsRejected() {
+    assertFalse(referenceDataIndex.getCodeListValues(NEW_CODE_LISTS_SHEET_NAME, 2).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> referenceDataIndex.getCodeListValues(NEW_CODE_LISTS_SHEET_NAME, 99));
+  }
+}
@@ -0,0 +1,21 @@
+package bmir.radx.metadata.evaluator.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TemplateFieldIndexTest {
+  @Test
+  public void testRemoveIndicesMatchesRegularExpression() {
+    var paths = new String[]{
+        "/Data File Titles/Title",
+        "/Data File Creators[0]/Creator Name",
+        "/Data File Creators[12]/Creator Affiliation[3]/Name",
+        "/Field [a]/Value[]",
+        "/Unclosed[1"
+    };
+    for (var path : paths) {
+      assertEquals(path.replaceAll("\\[\\d+\\]", ""), TemplateFieldIndex.removeIndices(path));
+    }
+  }
+}
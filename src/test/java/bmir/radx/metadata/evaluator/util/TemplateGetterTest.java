@@ -0,0 +1,117 @@
+package bmir.radx.metadata.evaluator.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.metadatacenter.artifacts.model.core.TemplateInstanceArtifact;
+import org.metadatacenter.artifacts.model.reader.JsonArtifactReader;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TemplateGetterTest {
+  private static final String DATA_FILE_TEMPLATE = "RADxMetadataSpecification.json";
+  private static final String OTHER_TEMPLATE_ID = "https://repo.metadatacenter.org/templates/other-version";
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final TemplateGetter templateGetter = new TemplateGetter();
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+  private final Logger logger = (Logger) LoggerFactory.getLogger(TemplateGetter.class);
+  @TempDir
+  private Path directory;
+
+  @BeforeEach
+  public void setUp() {
+    ReflectionTestUtils.setField(templateGetter, "dataFileTemplateFileName", DATA_FILE_TEMPLATE);
+    appender.start();
+    logger.addAppender(appender);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    logger.detachAppender(appender);
+  }
+
+  @Test
+  public void testRegisteredVersionIsUsed() throws IOException {
+    var otherVersion = writeTemplate("other-version.json", OTHER_TEMPLATE_ID, "Other version");
+    ReflectionTestUtils.setField(templateGetter, "dataFileTemplateVersions", otherVersion.toString());
+    var bundled = templateGetter.getCompiledDataFileTemplate();
+
+    assertEquals(OTHER_TEMPLATE_ID, templateGetter.getCompiledDataFileTemplate(readInstance(OTHER_TEMPLATE_ID)).id());
+    assertSame(bundled, templateGetter.getCompiledDataFileTemplate(readInstance(bundled.id())));
+    assertSame(bundled, templateGetter.getCompiledDataFileTemplate(readInstance(null)));
+    assertTrue(getWarnings().isEmpty());
+  }
+
+  @Test
+  public void testUnknownVersionFallsBackToTheBundledTemplate() throws IOException {
+    var otherVersion = writeTemplate("other-version.json", OTHER_TEMPLATE_ID, "Other version");
+    ReflectionTestUtils.setField(templateGetter, "dataFileTemplateVersions", otherVersion.toString());
+    var bundled = templateGetter.getCompiledDataFileTemplate();
+    var unknownTemplateId = "https://repo.metadatacenter.org/templates/unknown";
+
+    assertSame(bundled, templateGetter.getCompiledDataFileTemplate(readInstance(unknownTemplateId)));
+    assertSame(bundled, templateGetter.getCompiledDataFileTemplate(readInstance(unknownTemplateId)));
+
+    // Warned once per template id
+    var warnings = getWarnings();
+    assertEquals(1, warnings.size());
+    assertTrue(warnings.get(0).contains(unknownTemplateId));
+  }
+
+  @Test
+  public void testDuplicateVersionIsIgnored() throws IOException {
+    var otherVersion = writeTemplate("other-version.json", OTHER_TEMPLATE_ID, "Other version");
+    var duplicate = writeTemplate("duplicate.json", OTHER_TEMPLATE_ID, "Duplicate");
+    ReflectionTestUtils.setField(templateGetter, "dataFileTemplateVersions", otherVersion + ", " + duplicate);
+
+    var template = templateGetter.getCompiledDataFileTemplate(readInstance(OTHER_TEMPLATE_ID));
+
+    assertTrue(template.content().contains("Other version"));
+    var warnings = getWarnings();
+    assertEquals(1, warnings.size());
+    assertTrue(warnings.get(0).contains(duplicate.toString()));
+  }
+
+  /***
+   * This method writes a copy of the bundled data file template with another id and title
+   */
+  private Path writeTemplate(String fileName, String templateId, String title) throws IOException {
+    var template = (ObjectNode) mapper.readTree(new ClassPathResource(DATA_FILE_TEMPLATE).getInputStream());
+    template.put("@id", templateId);
+    template.put("schema:name", title);
+    var path = directory.resolve(fileName);
+    mapper.writeValue(path.toFile(), template);
+    return path;
+  }
+
+  private TemplateInstanceArtifact readInstance(String isBasedOn) throws IOException {
+    var instance = (ObjectNode) mapper.readTree(new ClassPathResource("data-file-metadata.json").getInputStream());
+    if (isBasedOn == null) {
+      instance.remove("schema:isBasedOn");
+    } else {
+      instance.put("schema:isBasedOn", isBasedOn);
+    }
+    return new JsonArtifactReader().readTemplateInstanceArtifact(instance);
+  }
+
+  private List<String> getWarnings() {
+    return appender.list.stream()
+        .filter(event -> event.getLevel() == Level.WARN)
+        .map(ILoggingEvent::getFormattedMessage)
+        .toList();
+  }
+}
@@ -1,44 +1,43 @@
 package bmir.radx.metadata.evaluator.variable;
 
 import bmir.radx.metadata.evaluator.SpreadsheetReader;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.jupiter.api.Test;
-import org.springframework.core.io.ClassPathResource;
 
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
-import java.nio.file.Path;
-import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class SpreadsheetReaderTest {
   private SpreadsheetReader spreadsheetReader = new SpreadsheetReader();
   @Test
-  public void testReadVariablesMetadata() throws IOException {
-    // Path to the test spreadsheet file
-    String fileName = "variable-metadata.xlsx";
+  public void testReadAllCodeListValuesIndexesColumnsBeyondTheHeader() throws IOException {
+    byte[] content;
+    try (var workbook = new XSSFWorkbook();
+         var outputStream = new ByteArrayOutputStream()) {
+      var sheet = workbook.createSheet("Code-Lists");
+      var header = sheet.createRow(0);
+      header.createCell(0).setCellValue("FIELD");
+      header.createCell(1).setCellValue("VALUE");
+      var row = sheet.createRow(1);
+      row.createCell(0).setCellValue("STUDY DESIGN");
+      row.createCell(1).setCellValue("Cohort");
+      row.createCell(3).setCellValue("Cross-sectional");
+      workbook.write(outputStream);
+      content = outputStream.toByteArray();
+    }
 
-    // Read the spreadsheet file
-    File file = new ClassPathResource(fileName).getFile();
-    Path filePath = file.toPath();
-    List<VariableMetadataRow> metadataList = spreadsheetReader.readVariablesMetadata(filePath);
-
-    // Perform your assertions here
-    assertEquals(8836, metadataList.size()); // Example assertion, adjust based on your test data
-
-    var metadata = metadataList.get(0);
-    assertEquals("1", metadata.dataVariable());
-    assertEquals(false, metadata.isTier1CDE());
-    assertEquals(1, metadata.fileCount());
-    assertEquals(1, metadata.studyCount());
-    assertEquals(List.of("phs002747"), metadata.dbGaPIDs());
-    assertEquals(List.of("phs002747 - rad_017_812-01_07012021to09302021_DATA_origcopy_v1.csv"), metadata.filesPerStudy());
-    assertEquals(List.of("RADx-rad"), metadata.radxProgram());
-    assertEquals(null, metadata.label());
-    assertEquals(null, metadata.concept());
-    assertEquals(null, metadata.responses());
-    assertEquals(null, metadata.radxGlobalPrompt());
+    var codeLists = spreadsheetReader.readAllCodeListValues(new ByteArrayInputStream(content)).get("Code-Lists");
+
+    assertEquals(Set.of(1, 2, 3), codeLists.keySet());
+    assertEquals(Map.of("studyDesign", Set.of("Cohort")), codeLists.get(1));
+    assertEquals(Map.of(), codeLists.get(2));
+    assertEquals(Map.of("studyDesign", Set.of("Cross-sectional")), codeLists.get(3));
   }
 
   @Test
@@ -0,0 +1,230 @@
+package bmir.radx.metadata.evaluator.variable;
+
+import bmir.radx.metadata.evaluator.StreamingSpreadsheetReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StreamingSpreadsheetReaderTest {
+  // Dates are written in local time, as the workbooks hold them, so the fixtures do not depend on the time zone
+  private static final ObjectMapper mapper = new ObjectMapper()
+      .setDateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS"))
+      .setTimeZone(TimeZone.getDefault());
+  private final StreamingSpreadsheetReader streamingSpreadsheetReader = new StreamingSpreadsheetReader();
+
+  @Test
+  public void testReadVariablesMetadata() throws IOException {
+    Path filePath = new ClassPathResource("variable-metadata.xlsx").getFile().toPath();
+    List<VariableMetadataRow> metadataList = streamingSpreadsheetReader.readVariablesMetadata(filePath);
+
+    assertEquals(8836, metadataList.size());
+
+    var metadata = metadataList.get(0);
+    assertEquals(2, metadata.rowNumber());
+    assertEquals("1", metadata.dataVariable());
+    assertEquals(false, metadata.isTier1CDE());
+    assertEquals(1, metadata.fileCount());
+    assertEquals(1, metadata.studyCount());
+    assertEquals(List.of("phs002747"), metadata.dbGaPIDs());
+    assertEquals(List.of("phs002747 - rad_017_812-01_07012021to09302021_DATA_origcopy_v1.csv"), metadata.filesPerStudy());
+    assertEquals(List.of("RADx-rad"), metadata.radxProgram());
+    assertEquals(null, metadata.label());
+    assertEquals(null, metadata.concept());
+    assertEquals(null, metadata.responses());
+    assertEquals(null, metadata.radxGlobalPrompt());
+  }
+
+  @Test
+  public void testReadVariableSpreadsheetMatchesFixtures() throws IOException {
+    Path filePath = new ClassPathResource("variable-metadata.xlsx").getFile().toPath();
+
+    var spreadsheet = streamingSpreadsheetReader.readVariableSpreadsheet(filePath);
+
+    assertRowsMatchFixture("variable-metadata-rows.json.gz", spreadsheet.variableMetadataRows());
+    assertRowsMatchFixture("variable-metadata-all-variables.json.gz", spreadsheet.allVariablesRows());
+  }
+
+  @Test
+  public void testReadStudyMetadataMatchesFixture() throws IOException {
+    Path filePath = new ClassPathResource("study-metadata-template.xlsx").getFile().toPath();
+
+    var rows = streamingSpreadsheetReader.readStudyMetadata(filePath);
+
+    assertEquals(20, rows.size());
+    assertRowsMatchFixture("study-metadata-template-rows.json", rows);
+  }
+
+  @Test
+  public void testReadStudyMetadataWithBlankCellsAndFormulasMatchesFixture(@TempDir Path directory) throws IOException {
+    Path filePath = directory.resolve("study-metadata.xlsx");
+    writeWorkbook(filePath, true, workbook -> {
+      var sheet = workbook.createSheet();
+      var dateStyle = workbook.createCellStyle();
+      dateStyle.setDataFormat((short) 14);
+      createRow(sheet, 0, "Study PHS", "Study Title", "Description", "Study Start Date", "Study End Date",
+          "Estimated Sample Size", "Study Size");
+
+      var row = sheet.createRow(1);
+      row.createCell(0).setCellValue("phs002747");
+      row.createCell(1).setCellStyle(dateStyle);
+      row.createCell(2).setCellFormula("CONCATENATE(\"First \",\"study\")");
+      row.createCell(3).setCellValue(toDate(LocalDate.of(2021, 7, 1)));
+      row.getCell(3).setCellStyle(dateStyle);
+      row.createCell(4).setCellStyle(dateStyle);
+      row.createCell(5).setCellStyle(dateStyle);
+      row.createCell(6).setCellValue(120);
+
+      // Only blank cells, so the row is left out
+      var blankRow = sheet.createRow(2);
+      for (int column = 0; column < 7; column++) {
+        blankRow.createCell(column).setCellStyle(dateStyle);
+      }
+
+      row = sheet.createRow(3);
+      row.createCell(0).setCellValue("phs002748");
+      row.createCell(4).setCellFormula("D2+31");
+      row.getCell(4).setCellStyle(dateStyle);
+      row.createCell(6).setCellStyle(dateStyle);
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+    });
+
+    var actual = streamingSpreadsheetReader.readStudyMetadata(filePath);
+
+    assertRowsMatchFixture("study-metadata-blank-cells-rows.json", actual);
+    assertEquals(2, actual.size());
+    assertEquals("", actual.get(0).studyTitle());
+    assertEquals("First study", actual.get(0).description());
+    assertEquals(toDate(LocalDate.of(2021, 7, 1)), actual.get(0).studyStartDate());
+    assertNull(actual.get(0).studyEndDate());
+    assertEquals(0, actual.get(0).estimatedCohortSize());
+    assertEquals(toDate(LocalDate.of(2021, 8, 1)), actual.get(1).studyEndDate());
+  }
+
+  @Test
+  public void testReadStudyMetadataRejectsNumericTextField(@TempDir Path directory) throws IOException {
+    Path filePath = directory.resolve("study-metadata.xlsx");
+    writeWorkbook(filePath, false, workbook -> {
+      var sheet = workbook.createSheet();
+      createRow(sheet, 0, "Study PHS", "Study Title");
+      var row = sheet.createRow(1);
+      row.createCell(0).setCellValue("phs002747");
+      row.createCell(1).setCellValue(2021);
+    });
+
+    assertThrows(IllegalStateException.class, () -> streamingSpreadsheetReader.readStudyMetadata(filePath));
+  }
+
+  @Test
+  public void testReadVariablesMetadataWithFormulas(@TempDir Path directory) throws IOException {
+    Path filePath = directory.resolve("variable-metadata.xlsx");
+    writeWorkbook(filePath, false, workbook -> {
+      var sheet = workbook.createSheet();
+      createRow(sheet, 0, "Data Variable", "Is Tier 1 CDE", "File Count", "Study Count", "dbGaP IDs",
+          "Files Per Study", "RADx Program", "Label", "Concept", "Responses", "RADx Global Prompt");
+      var row = createRow(sheet, 1, "age", null, null, null, "phs002747, phs002748",
+          "phs002747 - a.csv; phs002748 - b.csv", "RADx-rad", null, "", null, "What is your age?");
+      row.createCell(1).setCellValue(true);
+      row.createCell(2).setCellValue(2);
+      row.createCell(3).setCellValue(1);
+      row.createCell(7).setCellFormula("CONCATENATE(\"Age\",\" in years\")");
+      row.createCell(9);
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+    });
+
+    var actual = streamingSpreadsheetReader.readVariablesMetadata(filePath);
+
+    // Formula cells give their formula text, and a blank cell is read as null
+    assertEquals(List.of(new VariableMetadataRow(2, "age", true, 2, 1, List.of("phs002747", "phs002748"),
+        List.of("phs002747 - a.csv", "phs002748 - b.csv"), List.of("RADx-rad"), "CONCATENATE(\"Age\",\" in years\")",
+        "", null, "What is your age?")), actual);
+  }
+
+  @Test
+  public void testReadStudyMetadataFromCsv(@TempDir Path directory) throws IOException {
+    Path filePath = directory.resolve("study-metadata.csv");
+    Files.writeString(filePath, """
+        \uFEFFStudy PHS,Study Title,Study Start Date,Estimated Sample Size
+        phs002747,"Study, with a comma",2021-07-01,120
+        ,,,
+        phs002748,Second study,7/1/2021,
+        """);
+
+    var rows = streamingSpreadsheetReader.readStudyMetadata(filePath);
+
+    assertEquals(2, rows.size());
+    assertEquals(2, rows.get(0).rowNumber());
+    assertEquals("phs002747", rows.get(0).studyPHS());
+    assertEquals("Study, with a comma", rows.get(0).studyTitle());
+    assertEquals(toDate(LocalDate.of(2021, 7, 1)), rows.get(0).studyStartDate());
+    assertEquals(120, rows.get(0).estimatedCohortSize());
+    assertEquals(4, rows.get(1).rowNumber());
+    assertEquals(toDate(LocalDate.of(2021, 7, 1)), rows.get(1).studyStartDate());
+    assertNull(rows.get(1).estimatedCohortSize());
+  }
+
+  /***
+   * The fixtures hold the rows read from the same workbooks by the POI user model, one JSON object per row
+   */
+  private static void assertRowsMatchFixture(String fixture, List<?> rows) throws IOException {
+    JsonNode expected;
+    try (var inputStream = openFixture(fixture)) {
+      expected = mapper.readTree(inputStream);
+    }
+    // Written out and read back, so values such as NaN compare as they were written to the fixture
+    var actual = mapper.readTree(mapper.writeValueAsBytes(rows));
+    assertEquals(expected.size(), actual.size(), fixture);
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i), actual.get(i), "Row " + i + " of " + fixture);
+    }
+  }
+
+  private static InputStream openFixture(String fixture) throws IOException {
+    var inputStream = new ClassPathResource(fixture).getInputStream();
+    return fixture.endsWith(".gz") ? new GZIPInputStream(inputStream) : inputStream;
+  }
+
+  private static void writeWorkbook(Path filePath, boolean date1904, Consumer<XSSFWorkbook> content) throws IOException {
+    try (var workbook = new XSSFWorkbook();
+         var outputStream = Files.newOutputStream(filePath)) {
+      workbook.getCTWorkbook().getWorkbookPr().setDate1904(date1904);
+      content.accept(workbook);
+      workbook.write(outputStream);
+    }
+  }
+
+  private static Row createRow(Sheet sheet, int rowIndex, String... values) {
+    var row = sheet.createRow(rowIndex);
+    for (int column = 0; column < values.length; column++) {
+      if (values[column] != null) {
+        row.createCell(column).setCellValue(values[column]);
+      }
+    }
+    return row;
+  }
+
+  private static Date toDate(LocalDate date) {
+    return Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+  }
+}